@@ -0,0 +1,95 @@
+package productdetector.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import productdetector.model.Product;
+import productdetector.model.Role;
+import productdetector.model.User;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(HibernateCacheConfig.class);
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * The cache manager of the Hibernate second-level cache. Every region is created here with a size and time
+     * bound, Hibernate is configured to fail on any region which isn't.
+     */
+    @Bean(name = "hibernateCacheManager", destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        LOGGER.info("Initializing Hibernate second-level cache.");
+
+        long maxEntries = env.getProperty("server.entityCache.maxEntries", Long.class, 10000L);
+        long ttlInS = env.getProperty("server.entityCache.ttlInS", Long.class, 600L);
+        long queryMaxEntries = env.getProperty("server.entityCache.queryMaxEntries", Long.class, 1000L);
+        long queryTtlInS = env.getProperty("server.entityCache.queryTtlInS", Long.class, 60L);
+
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+
+        createCache(cacheManager, Product.class.getName(), maxEntries, ttlInS);
+        createCache(cacheManager, User.class.getName(), maxEntries, ttlInS);
+        createCache(cacheManager, User.class.getName() + ".roles", maxEntries, ttlInS);
+        createCache(cacheManager, Role.class.getName(), maxEntries, ttlInS);
+        createCache(cacheManager, QUERY_RESULTS_REGION, queryMaxEntries, queryTtlInS);
+
+        // The update timestamps tell whether a cached query result is stale. There's one entry per table, and it
+        // must never be evicted before the query results.
+
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, 0, 0);
+
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer() {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager());
+    }
+
+    private void createCache(CacheManager cacheManager, String name, long maxEntries, long ttlInS) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+
+        if (maxEntries > 0) {
+            configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+
+        if (ttlInS > 0) {
+            configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlInS)));
+        }
+
+        // Hibernate caches immutable entry representations, so they don't need to be copied.
+
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+
+        Cache<Object, Object> cache = cacheManager.createCache(name, configuration);
+
+        JCacheMetrics.monitor(meterRegistry, cache);
+    }
+
+}
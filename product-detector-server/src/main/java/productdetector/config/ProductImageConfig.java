@@ -0,0 +1,28 @@
+package productdetector.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ProductImageConfig {
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * The product image executor creates image renditions in the background.
+     */
+    @Bean(name = "productImageExecutor", destroyMethod = "shutdown")
+    public ExecutorService productImageExecutor() {
+        int threads = env.getProperty("server.productImage.threads", Integer.class, 2);
+
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("product-image-"));
+    }
+
+}
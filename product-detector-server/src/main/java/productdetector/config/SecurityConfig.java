@@ -16,6 +16,7 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 import productdetector.security.CustomUserDetailsService;
+import productdetector.filter.DetectRateLimitFilter;
 import productdetector.filter.JwtAuthenticationFilter;
 
 
@@ -36,6 +37,11 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         return new JwtAuthenticationFilter();
     }
 
+    @Bean
+    public DetectRateLimitFilter detectRateLimitFilter() {
+        return new DetectRateLimitFilter();
+    }
+
     @Override
     public void configure(AuthenticationManagerBuilder authenticationManagerBuilder) throws Exception {
         authenticationManagerBuilder
@@ -83,11 +89,14 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                     .permitAll()
                 .antMatchers("/swagger-resources/**")
                     .permitAll()
+                .antMatchers("/actuator/metrics/**")
+                    .hasRole("ADMIN")
                 .antMatchers("/api/v1/**")
                     .permitAll()
                 .anyRequest()
                     .permitAll();
 
         http.addFilterBefore(jwtAuthenticationFilter(), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterAfter(detectRateLimitFilter(), JwtAuthenticationFilter.class);
     }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package productdetector.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class SigninConfig {
+
+    @Autowired
+    private Environment env;
+
+    /**
+     * The sign-in executor verifies passwords. BCrypt is CPU bound by design, so sign-ins are limited to a few
+     * threads and a bounded queue. If the queue is full, further sign-ins are rejected instead of starving the
+     * request threads.
+     */
+    @Bean(name = "signinExecutor", destroyMethod = "shutdown")
+    public ExecutorService signinExecutor() {
+        int threads = env.getProperty("server.signin.threads", Integer.class, 2);
+        int queueSize = env.getProperty("server.signin.queueSize", Integer.class, 100);
+
+        return new ThreadPoolExecutor(threads, threads,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                new CustomizableThreadFactory("signin-"),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+}
@@ -0,0 +1,66 @@
+package productdetector.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import vision.client.VisionApiExtension;
+import vision.client.VisionApiFactory;
+import vision.client.VisionApiSettings;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class VisionApiConfig {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(VisionApiConfig.class);
+
+    @Autowired
+    private Environment env;
+
+    @Bean(name = "visionApiExecutor", destroyMethod = "shutdown")
+    public ExecutorService visionApiExecutor() {
+        int threads = env.getProperty("vision.api.executor.threads", Integer.class, 8);
+
+        return Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("vision-api-"));
+    }
+
+    @Bean
+    public VisionApiExtension visionApi() throws Exception {
+        LOGGER.info("Initializing Vision API client.");
+
+        // One client for the whole application, so connections, TLS sessions and the object mapper get reused.
+
+        VisionApiSettings settings = new VisionApiSettings()
+                .connectTimeout(Duration.ofMillis(env.getProperty("vision.api.connectTimeoutInMs", Long.class, 5000L)))
+                .httpVersion(HttpClient.Version.valueOf(env.getProperty("vision.api.httpVersion", "HTTP_2")))
+                .connectionPoolSize(env.getProperty("vision.api.connectionPoolSize", Integer.class))
+                .modelIdCacheTtl(Duration.ofSeconds(env.getProperty("vision.api.modelIdCacheTtlInS", Long.class, 60L)))
+                .executor(visionApiExecutor());
+
+        Long readTimeoutInMs = env.getProperty("vision.api.readTimeoutInMs", Long.class);
+
+        if (readTimeoutInMs != null) {
+            settings.readTimeout(Duration.ofMillis(readTimeoutInMs));
+        }
+
+        Long keepAliveTimeoutInS = env.getProperty("vision.api.keepAliveTimeoutInS", Long.class);
+
+        if (keepAliveTimeoutInS != null) {
+            settings.keepAliveTimeout(Duration.ofSeconds(keepAliveTimeoutInS));
+        }
+
+        return VisionApiFactory.newVisionApi(
+                env.getProperty("vision.api.url"),
+                env.getProperty("vision.api.authorization.user"),
+                env.getProperty("vision.api.authorization.password"),
+                settings);
+    }
+
+}
@@ -1,37 +1,57 @@
 package productdetector.controller;
 
-import vision.client.VisionApiUtils;
 import vision.client.generated.vision.client.invoker.ApiResponse;
 import vision.client.generated.vision.client.model.*;
 import io.swagger.v3.oas.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import productdetector.exception.BadRequestException;
+import productdetector.exception.PayloadTooLargeException;
 import productdetector.exception.ResourceNotFoundException;
+import productdetector.filter.DetectRateLimitFilter;
 import productdetector.model.Product;
 import productdetector.model.ProductImage;
 import productdetector.payload.*;
 import productdetector.repository.ProductImageRepository;
 import productdetector.repository.ProductRepository;
+import productdetector.repository.ProductSummary;
 import productdetector.repository.UserRepository;
 import productdetector.security.CurrentUser;
 import productdetector.security.UserPrincipal;
+import productdetector.service.PreparedImage;
+import productdetector.service.ProductDetectService;
+import productdetector.service.ProductImageSize;
 import productdetector.service.ProductService;
+import productdetector.service.VisionImageService;
 import productdetector.service.VisionService;
+import productdetector.util.ImageUtils;
 import productdetector.util.Utils;
 
-import javax.imageio.ImageIO;
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
 import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 
@@ -59,10 +79,25 @@ public class ProductRestController {
     @Autowired
     private VisionService visionService;
 
+    @Autowired
+    private VisionImageService visionImageService;
+
+    @Autowired
+    private ProductDetectService productDetectService;
+
+    @Value("${vision.detect.batch.maxImages}")
+    private int detectBatchMaxImages;
+
+    @Value("${server.productListMaxPageSize}")
+    private int productListMaxPageSize;
+
+    @Value("${spring.servlet.multipart.max-file-size}")
+    private DataSize binaryImageMaxSize;
+
     @PostMapping()
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<ProductCreateResponseDto> productCreate(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
-                                                                  @RequestBody ProductCreateRequestDto productCreateRequestDto) {
+                                                                  @Valid @RequestBody ProductCreateRequestDto productCreateRequestDto) {
         Product product = productService.createProduct(productCreateRequestDto.getName());
 
         ProductCreateResponseDto response = new ProductCreateResponseDto();
@@ -77,7 +112,8 @@ public class ProductRestController {
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<ProductGetResponseDto> productGet(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
-                                                            @PathVariable("id") Long productId) {
+                                                            @PathVariable("id") Long productId,
+                                                            @RequestParam(value = "imageUrls", defaultValue = "false") boolean imageUrls) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
 
@@ -87,27 +123,114 @@ public class ProductRestController {
         response.setName(product.getName());
         response.setNotes(product.getNotes());
 
-        if (product.getMainImage() != null && product.getMainImage().length != 0) {
-            try {
-                ByteArrayInputStream bis = new ByteArrayInputStream(product.getMainImage());
-                BufferedImage bufferedImage = ImageIO.read(bis);
-                response.setMainImage("data:image/jpeg;base64," + VisionApiUtils.imageToBase64String(bufferedImage, "jpg"));
-            } catch (Exception e) {
-                LOGGER.error(e.getMessage(), e);
+        response.setMainImageUrl(productService.getProductImageUrl(product));
+
+        if (!imageUrls) {
+            byte[] thumbnail = productService.getProductThumbnail(product);
+
+            if (thumbnail != null) {
+                response.setMainImage(ImageUtils.toJpegDataUri(thumbnail));
             }
         }
 
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/{id}/image")
+    @PreAuthorize("permitAll()")
+    public ResponseEntity<byte[]> productImage(@PathVariable("id") Long productId,
+                                               @RequestParam(value = "size", defaultValue = "256") String sizeName,
+                                               @RequestParam(value = "v", required = false) String version,
+                                               @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ProductImageSize size = ProductImageSize.fromName(sizeName);
+
+        if (size == null) {
+            throw new BadRequestException("Invalid image size.");
+        }
+
+        String imageHash = productService.getProductImageHash(productId);
+
+        if (imageHash == null) {
+            throw new ResourceNotFoundException("Product image", "id", productId);
+        }
+
+        // The image of a versioned URL never changes, any other URL has to be revalidated by the client. A client
+        // only knows the ETag of a size once it has been served, so a match doesn't need to check the renditions.
+
+        CacheControl cacheControl = imageHash.equals(version)
+                ? CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic()
+                : CacheControl.noCache().cachePublic();
+
+        String eTag = "\"" + imageHash + "-" + size.getName() + "\"";
+
+        if (matchesETag(ifNoneMatch, eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).cacheControl(cacheControl).build();
+        }
+
+        // Renditions are created in the background after an image is written. Until the requested size exists, the
+        // next larger image is served and must not be cached.
+
+        byte[] image = null;
+
+        for (int i = size.ordinal(); i < ProductImageSize.values().length && image == null; i++) {
+            ProductImageSize servedSize = ProductImageSize.values()[i];
+
+            image = productService.getProductImage(productId, servedSize);
+
+            if (image != null && servedSize != size) {
+                eTag = "\"" + imageHash + "-" + servedSize.getName() + "\"";
+                cacheControl = CacheControl.noCache().cachePublic();
+            }
+        }
+
+        if (image == null) {
+            throw new ResourceNotFoundException("Product image", "id", productId);
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .eTag(eTag)
+                .cacheControl(cacheControl)
+                .body(image);
+    }
+
     @GetMapping()
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ProductGetAllResponseDto> productGetAll(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser) {
-        List<Product> products = productRepository.findAll();
+    public ResponseEntity<ProductGetAllResponseDto> productGetAll(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                  @RequestParam(value = "limit", required = false) Integer limit,
+                                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        // Products are listed by name and id (keyset pagination), the cursor is the position of the last product of
+        // the previous page. Without a limit, all products are returned.
+
+        if (limit != null && (limit < 1 || limit > productListMaxPageSize)) {
+            throw new BadRequestException("Invalid limit (1 - " + productListMaxPageSize + ").");
+        }
 
-        List<ProductGetAllResponseDto.ProductDto> responseProducts = new LinkedList<>();
+        Pageable pageable = limit != null ? PageRequest.of(0, limit + 1) : Pageable.unpaged();
 
-        for (Product product : products) {
+        List<ProductSummary> products;
+
+        if (cursor != null) {
+            String[] position = decodeProductCursor(cursor);
+
+            products = productRepository.findSummariesAfter(position[1], Long.parseLong(position[0]), pageable);
+        } else {
+            products = productRepository.findSummaries(pageable);
+        }
+
+        ProductGetAllResponseDto response = new ProductGetAllResponseDto();
+
+        if (limit != null && products.size() > limit) {
+            products = products.subList(0, limit);
+
+            ProductSummary last = products.get(limit - 1);
+
+            response.setNextCursor(encodeProductCursor(last.getId(), last.getName()));
+        }
+
+        List<ProductGetAllResponseDto.ProductDto> responseProducts = new ArrayList<>(products.size());
+
+        for (ProductSummary product : products) {
             ProductGetAllResponseDto.ProductDto responseProduct = new ProductGetAllResponseDto.ProductDto();
 
             responseProduct.setId(product.getId().toString());
@@ -117,10 +240,6 @@ public class ProductRestController {
             responseProducts.add(responseProduct);
         }
 
-        ProductGetAllResponseDto response = new ProductGetAllResponseDto();
-
-        responseProducts.sort(Comparator.comparing(ProductGetAllResponseDto.ProductDto::getName));
-
         response.setProducts(responseProducts);
 
         return ResponseEntity.ok(response);
@@ -147,27 +266,18 @@ public class ProductRestController {
         }
 
         if (productUpdateRequest.getMainImage() != null) {
-            String imageData = productUpdateRequest.getMainImage();
+            BufferedImage bufferedImage = ImageUtils.fromBytes(productUpdateRequest.getMainImage());
 
-            if (imageData.contains("base64")) {
-                imageData = imageData.substring(imageData.indexOf("base64") + 7);
+            if (bufferedImage == null) {
+                throw new BadRequestException("Image format not supported.");
             }
 
-            BufferedImage bufferedImage = VisionApiUtils.baseToImage64String(imageData);
-
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
-
-            ImageIO.write(bufferedImage, "jpg", bos );
-
-            product.setMainImage(bos.toByteArray());
-            product.setMainImageType("jpg");
-        }
-
-        if (productUpdateRequest.getName() != null
+            product = productService.updateProductMainImage(product, bufferedImage);
+        } else if (productUpdateRequest.getName() != null
             || productUpdateRequest.getNotes() != null
             || productUpdateRequest.getActive() != null) {
 
-            product = productRepository.save(product);
+            product = productService.updateProduct(product);
         }
 
         ProductUpdateResponseDto response = new ProductUpdateResponseDto();
@@ -181,87 +291,120 @@ public class ProductRestController {
 
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    @Transactional
     public ResponseEntity productDelete(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
                                         @PathVariable("id") Long productId) {
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
 
-        productImageRepository.deleteByProductId(product.getId());
-        productImageRepository.flush();
-        productRepository.delete(product);
+        productService.deleteProduct(product);
 
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/detect")
     @PreAuthorize("hasRole('USER')")
-    @Transactional(readOnly = true)
-    public ResponseEntity<ProductDetectResponseDto> detect(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
-                                                           @RequestBody ProductDetectRequestDto productDetectRequest) throws Exception {
+    public CompletableFuture<ResponseEntity<ProductDetectResponseDto>> detect(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                              @RequestBody ProductDetectRequestDto productDetectRequest,
+                                                                              @RequestParam(value = "imageUrls", defaultValue = "false") boolean imageUrls) throws Exception {
         ImageDto imageDto = productDetectRequest.getImage();
 
-        String imageData = imageDto.getData();
+        return detect(imageDto.getData(), imageUrls);
+    }
+
+    @PostMapping(value = "/detect", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public CompletableFuture<ResponseEntity<ProductDetectResponseDto>> detectMultipart(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                                       @RequestPart("image") MultipartFile image,
+                                                                                       @RequestParam(value = "imageUrls", defaultValue = "false") boolean imageUrls) throws Exception {
+        return detect(image.getBytes(), imageUrls);
+    }
+
+    @PostMapping(value = "/detect", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public CompletableFuture<ResponseEntity<ProductDetectResponseDto>> detectBinary(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                                    @RequestParam(value = "imageUrls", defaultValue = "false") boolean imageUrls,
+                                                                                    HttpServletRequest request) throws Exception {
+        return detect(readBinaryImage(request), imageUrls);
+    }
 
-        if (imageData.contains("base64")) {
-            imageData = imageData.substring(imageData.indexOf("base64") + 7);
+    @PostMapping("/detect/batch")
+    @PreAuthorize("hasRole('USER')")
+    public CompletableFuture<ResponseEntity<ProductDetectBatchResponseDto>> detectBatch(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                                        @RequestBody ProductDetectBatchRequestDto productDetectBatchRequest,
+                                                                                        @RequestParam(value = "imageUrls", defaultValue = "false") boolean imageUrls,
+                                                                                        HttpServletRequest request) {
+        List<ImageDto> imageDtos = productDetectBatchRequest.getImages();
+
+        if (imageDtos == null || imageDtos.isEmpty()) {
+            throw new BadRequestException("No images.");
         }
 
-        BufferedImage bufferedImage = VisionApiUtils.baseToImage64String(imageData);
+        if (imageDtos.size() > detectBatchMaxImages) {
+            throw new BadRequestException("Too many images (max. " + detectBatchMaxImages + ").");
+        }
 
-        ModelDetectRequest modelDetectRequest = new ModelDetectRequest();
+        // Each image counts against the detect rate limit.
 
-        modelDetectRequest.setImage(new Image()
-                .format("jpg")
-                .encoding("base64")
-                .data(VisionApiUtils.imageToBase64String(bufferedImage, "jpg")));
+        request.setAttribute(DetectRateLimitFilter.IMAGE_COUNT_ATTRIBUTE, imageDtos.size());
 
-        String modelId = visionService.getVisionModelId();
+        // Images which can't be prepared are reported per image, the remaining images are still detected.
 
-        ApiResponse<ModelDetectResponse> modelDetectResponse = visionService.newVisionApi().modelDetectWithHttpInfo(modelId, modelDetectRequest);
+        List<PreparedImage> preparedImages = new ArrayList<>();
+        Map<Integer, String> errors = new HashMap<>();
+        List<Integer> preparedImageIndexes = new ArrayList<>();
 
-        if (modelDetectResponse.getStatusCode() != 200) {
-            throw new Exception("Model detection failed (HTTP status != 200).");
+        for (int i = 0; i < imageDtos.size(); i++) {
+            try {
+                preparedImages.add(visionImageService.prepareDetectImage(imageDtos.get(i).getData()));
+                preparedImageIndexes.add(i);
+            } catch (Exception e) {
+                LOGGER.warn("Preparing batch image {} failed.", i, e);
+                errors.put(i, "Invalid image.");
+            }
         }
 
-        if (modelDetectResponse.getData() == null
-            || modelDetectResponse.getData().getDetectedObjects() == null) {
-            return ResponseEntity.ok(Utils.touch(new ProductDetectResponseDto(), e -> {
-            }));
-        }
+        List<CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> futures = preparedImages.isEmpty()
+                ? Collections.emptyList()
+                : productDetectService.detectProducts(preparedImages);
 
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .handle((ignored, ignoredThrowable) -> {
+                    ProductDetectBatchResponseDto.ResultDto[] results = new ProductDetectBatchResponseDto.ResultDto[imageDtos.size()];
+                    List<List<ProductDetectResponseDto.ProductDto>> detectedProducts = new ArrayList<>();
 
-        List<ProductDetectResponseDto.ProductDto> products = new LinkedList<>();
+                    for (int i = 0; i < futures.size(); i++) {
+                        int index = preparedImageIndexes.get(i);
 
-        for (ModelDetectResponseDetectedObjects detect : modelDetectResponse.getData().getDetectedObjects()) {
-            Optional<Product> productOptional = productRepository.findByVisionLabel(detect.getLabel());
+                        try {
+                            List<ProductDetectResponseDto.ProductDto> products = withImages(futures.get(i).join(), imageUrls);
 
-            if (productOptional.isPresent() && productOptional.get().getActive()) {
-                Product product = productOptional.get();
-                products.add(Utils.touch(new ProductDetectResponseDto.ProductDto(), e -> {
-                    e.setId(product.getId());
-                    e.setName(product.getName());
-                    e.setNotes(product.getNotes());
-                    e.setProbability(BigDecimal.valueOf(detect.getProbability()));
+                            detectedProducts.add(products);
 
-                    if (product.getMainImage() != null && product.getMainImage().length != 0) {
-                        try {
-                            ByteArrayInputStream bis = new ByteArrayInputStream(product.getMainImage());
-                            BufferedImage bi = ImageIO.read(bis);
-                            e.setMainImage("data:image/jpeg;base64," + VisionApiUtils.imageToBase64String(bi, "jpg"));
-                        } catch (Exception e1) {
-                            LOGGER.error(e1.getMessage(), e1);
+                            results[index] = Utils.touch(new ProductDetectBatchResponseDto.ResultDto(), e -> {
+                                e.setIndex(index);
+                                e.setProducts(products);
+                            });
+                        } catch (CompletionException | CancellationException e) {
+                            Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+
+                            LOGGER.warn("Product detection of batch image {} failed.", index, cause);
+                            errors.put(index, cause instanceof TimeoutException ? "Detection timed out." : "Detection failed.");
                         }
                     }
-                }));
-            }
-        }
 
-        products.sort(Comparator.comparing(ProductDetectResponseDto.ProductDto::getProbability).reversed());
+                    errors.forEach((index, error) -> results[index] = Utils.touch(new ProductDetectBatchResponseDto.ResultDto(), e -> {
+                        e.setIndex(index);
+                        e.setError(error);
+                    }));
 
-        return ResponseEntity.ok(Utils.touch(new ProductDetectResponseDto(), e -> {
-            e.setProducts(products);
-        }));
+                    return ResponseEntity.ok(Utils.touch(new ProductDetectBatchResponseDto(), e -> {
+                        e.setResults(Arrays.asList(results));
+
+                        if (Boolean.TRUE.equals(productDetectBatchRequest.getMergeResults())) {
+                            e.setMergedProducts(productDetectService.mergeProducts(detectedProducts));
+                        }
+                    }));
+                });
     }
 
     @PostMapping("/{id}/add-example-data")
@@ -269,28 +412,106 @@ public class ProductRestController {
     public ResponseEntity productAddProductExampleData(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
                                                        @PathVariable("id") Long productId,
                                                        @RequestBody ProductAddExampleDataRequestDto productAddExampleDataRequestDto) throws Exception {
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+        return addProductExampleData(productId, productAddExampleDataRequestDto.getProductImage());
+    }
 
-        String imageData = productAddExampleDataRequestDto.getProductImage();
+    @PostMapping(value = "/{id}/add-example-data", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity productAddProductExampleDataMultipart(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                                @PathVariable("id") Long productId,
+                                                                @RequestPart("productImage") MultipartFile productImage) throws Exception {
+        return addProductExampleData(productId, productImage.getBytes());
+    }
 
-        if (imageData.contains("base64")) {
-            imageData = imageData.substring(imageData.indexOf("base64") + 7);
+    @PostMapping(value = "/{id}/add-example-data", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity productAddProductExampleDataBinary(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                             @PathVariable("id") Long productId,
+                                                             HttpServletRequest request) throws Exception {
+        return addProductExampleData(productId, readBinaryImage(request));
+    }
+
+    @PostMapping("/train-all")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ProductTrainAllResponseDto> trainAll(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
+                                                               @RequestBody ProductTrainAllRequestDto productTrainAllRequestDto) throws Exception {
+        List<Product> products = productRepository.findAll();
+
+        if (products == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Set<String> visionLabels = new HashSet<>();
+
+        for (Product product : products) {
+            visionLabels.add(product.getVisionLabel());
+        }
+
+        ApiResponse<ModelTrainResponse> modelTrainResponse = visionService.trainVisionModel(visionLabels);
+
+        if (modelTrainResponse.getStatusCode() != 200) {
+            throw new Exception("Model detection failed (HTTP status != 200).");
         }
 
-        BufferedImage bufferedImage = VisionApiUtils.baseToImage64String(imageData);
+        return ResponseEntity.ok(Utils.touch(new ProductTrainAllResponseDto(), e -> {
+            e.setTrainId(modelTrainResponse.getData().getTrainId());
+        }));
+    }
+
+    @PostMapping("/demo-data-setup")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity demoDataSetup(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser) throws Exception {
+        productService.recreateProductDataFromVisionModel();
+
+        return ResponseEntity.ok().build();
+    }
+
+    private CompletableFuture<ResponseEntity<ProductDetectResponseDto>> detect(byte[] imageData, boolean imageUrls) throws IOException {
+        PreparedImage preparedImage = visionImageService.prepareDetectImage(imageData);
+
+        // The request thread is released while the Vision API classifies the image.
+
+        return productDetectService.detectProducts(preparedImage)
+                .handle((products, throwable) -> {
+                    if (throwable == null) {
+                        return ResponseEntity.ok(Utils.touch(new ProductDetectResponseDto(), e -> {
+                            e.setProducts(withImages(products, imageUrls));
+                        }));
+                    }
+
+                    Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+                    if (cause instanceof TimeoutException) {
+                        LOGGER.warn("Product detection timed out.");
+
+                        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(Utils.touch(new ProductDetectResponseDto(), e -> {
+                            e.setProducts(Collections.emptyList());
+                        }));
+                    }
+
+                    throw new CompletionException(cause);
+                });
+    }
+
+    private ResponseEntity addProductExampleData(Long productId, byte[] imageData) throws Exception {
+        Product product = productRepository.findById(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Product", "id", productId));
+
+        PreparedImage preparedImage = visionImageService.prepareImage(imageData);
 
         ModelDataCreateRequest modelDataCreateRequest = new ModelDataCreateRequest();
 
-        modelDataCreateRequest.setImage(new Image()
-                .format("jpg")
-                .encoding("base64")
-                .data(VisionApiUtils.imageToBase64String(bufferedImage, "jpg")));
-        modelDataCreateRequest.setObjects(List.of(new ObjectInData().label(product.getVisionLabel()).boundingBox(new BoundingBox().x(0).y(0).width(bufferedImage.getWidth()).height(bufferedImage.getHeight()))));
+        modelDataCreateRequest.setObjects(List.of(new ObjectInData().label(product.getVisionLabel()).boundingBox(new BoundingBox().x(0).y(0).width(preparedImage.getWidth()).height(preparedImage.getHeight()))));
 
         String modelId = visionService.getVisionModelId();
 
-        ApiResponse<ModelDataCreateResponse> modelDataCreateResponse = visionService.newVisionApi().modelDataCreateWithHttpInfo(modelId, modelDataCreateRequest);
+        ApiResponse<ModelDataCreateResponse> modelDataCreateResponse;
+
+        try {
+            modelDataCreateResponse = visionService.getVisionApi().modelDataCreateAsync(modelId, modelDataCreateRequest, preparedImage.getImage(), null).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
 
         if (modelDataCreateResponse.getStatusCode() != 200) {
             throw new Exception("Model detection failed (HTTP status != 200).");
@@ -307,46 +528,77 @@ public class ProductRestController {
         return ResponseEntity.ok().build();
     }
 
-    @PostMapping("/train-all")
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<ProductTrainAllResponseDto> trainAll(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser,
-                                                               @RequestBody ProductTrainAllRequestDto productTrainAllRequestDto) throws Exception {
-        List<Product> products = productRepository.findAll();
+    private static String encodeProductCursor(Long id, String name) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString((id + ":" + name).getBytes(StandardCharsets.UTF_8));
+    }
 
-        if (products == null) {
-            return ResponseEntity.notFound().build();
+    private static String[] decodeProductCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 2);
+
+            if (position.length == 2) {
+                Long.parseLong(position[0]);
+                return position;
+            }
+        } catch (IllegalArgumentException e) {
+            // Handled below.
         }
 
-        Set<String> visionLabels = new HashSet<>();
+        throw new BadRequestException("Invalid cursor.");
+    }
 
-        for (Product product : products) {
-            visionLabels.add(product.getVisionLabel());
+    /**
+     * Returns the detected products with either inline images or image URLs only. The products may be shared with the
+     * detection result cache, so they are copied rather than changed.
+     */
+    private static List<ProductDetectResponseDto.ProductDto> withImages(List<ProductDetectResponseDto.ProductDto> products, boolean imageUrls) {
+        if (!imageUrls) {
+            return products;
         }
 
-        String modelId = visionService.getVisionModelId();
-
-        ModelTrainRequest modelTrainRequest = new ModelTrainRequest();
+        return products.stream().map(product -> Utils.touch(new ProductDetectResponseDto.ProductDto(), e -> {
+            e.setId(product.getId());
+            e.setName(product.getName());
+            e.setNotes(product.getNotes());
+            e.setProbability(product.getProbability());
+            e.setMainImageUrl(product.getMainImageUrl());
+        })).collect(Collectors.toList());
+    }
 
-        modelTrainRequest.setSettings(new LinkedList<>());
-        modelTrainRequest.setLabels(visionLabels.stream().collect(Collectors.toList()));
+    private static boolean matchesETag(String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
 
-        ApiResponse<ModelTrainResponse> modelTrainResponse = visionService.newVisionApi().modelTrainWithHttpInfo(modelId, modelTrainRequest);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
 
-        if (modelTrainResponse.getStatusCode() != 200) {
-            throw new Exception("Model detection failed (HTTP status != 200).");
+            if (candidate.equals("*") || candidate.equals(eTag) || candidate.equals("W/" + eTag)) {
+                return true;
+            }
         }
 
-        return ResponseEntity.ok(Utils.touch(new ProductTrainAllResponseDto(), e -> {
-            e.setTrainId(modelTrainResponse.getData().getTrainId());
-        }));
+        return false;
     }
 
-    @PostMapping("/demo-data-setup")
-    @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity demoDataSetup(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser) throws Exception {
-        productService.recreateProductDataFromVisionModel();
+    /**
+     * Reads a binary image request body with the same size limit as multipart uploads. The body is read through a
+     * bounded stream, so an oversized body is rejected before it's buffered.
+     */
+    private byte[] readBinaryImage(HttpServletRequest request) throws IOException {
+        long maxBytes = binaryImageMaxSize.toBytes();
 
-        return ResponseEntity.ok().build();
+        if (request.getContentLengthLong() > maxBytes) {
+            throw new PayloadTooLargeException("Image too large (max. " + maxBytes + " bytes).");
+        }
+
+        byte[] image = request.getInputStream().readNBytes((int) maxBytes + 1);
+
+        if (image.length > maxBytes) {
+            throw new PayloadTooLargeException("Image too large (max. " + maxBytes + " bytes).");
+        }
+
+        return image;
     }
 
 }
@@ -1,14 +1,20 @@
 package productdetector.controller;
 
+import io.jsonwebtoken.Claims;
 import io.swagger.v3.oas.annotations.Parameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
@@ -20,9 +26,14 @@ import productdetector.repository.UserRepository;
 import productdetector.security.CurrentUser;
 import productdetector.security.JwtTokenProvider;
 import productdetector.security.UserPrincipal;
+import productdetector.service.TokenRevocationService;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 import java.net.URI;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 
 
@@ -44,43 +55,65 @@ public class UserRestController {
     @Autowired
     private JwtTokenProvider tokenProvider;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    @Qualifier("signinExecutor")
+    private Executor signinExecutor;
+
+    @Value("${server.signin.retryAfterInS}")
+    private int signinRetryAfterInS;
+
     @PostMapping("/signin")
     @PreAuthorize("permitAll()")
-    public ResponseEntity<JwtAuthenticationResponseDto> signin(@Valid @RequestBody SigninRequestDto signinRequest) {
-        // Authenticate.
-
-        Authentication authentication = authenticationManager.authenticate(
-            new UsernamePasswordAuthenticationToken(
-                signinRequest.getUsernameOrEmail(),
-                signinRequest.getPassword()
-            )
-        );
+    public CompletableFuture<ResponseEntity<JwtAuthenticationResponseDto>> signin(@Valid @RequestBody SigninRequestDto signinRequest) {
+        // The password is verified on the sign-in executor, so BCrypt can't occupy the request threads.
 
-        // Signin on server side.
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                Authentication authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                        signinRequest.getUsernameOrEmail(),
+                        signinRequest.getPassword()
+                    )
+                );
 
-        SecurityContextHolder.getContext().setAuthentication(authentication);
+                // The authenticated principal already holds the user and its roles.
 
-        String jwt = tokenProvider.generateToken(authentication);
+                UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
-        User user = userRepository.findByUsername(signinRequest.getUsernameOrEmail())
-                .orElseThrow(() -> new ResourceNotFoundException("User", "username", signinRequest.getUsernameOrEmail()));
+                String jwt = tokenProvider.generateToken(authentication);
 
+                JwtAuthenticationResponseDto responseDto = new JwtAuthenticationResponseDto();
 
-        JwtAuthenticationResponseDto responseDto = new JwtAuthenticationResponseDto();
+                responseDto.setAccessToken(jwt);
+                responseDto.setRole(userPrincipal.getAuthorities().stream().map(GrantedAuthority::getAuthority).collect(Collectors.joining(";")));
 
-        responseDto.setAccessToken(jwt);
-        responseDto.setRole(user.getRoles().stream().map(e -> e.getName().name()).collect(Collectors.joining(";")));
+                return ResponseEntity.ok(responseDto);
+            }, signinExecutor);
+        } catch (RejectedExecutionException e) {
+            LOGGER.warn("Sign-in rejected, too many pending sign-ins.");
 
-        return ResponseEntity.ok(responseDto);
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Integer.toString(signinRetryAfterInS))
+                    .build());
+        }
     }
 
     @PostMapping("/signout")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<ApiResponseDto> signout(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser, @Valid @RequestBody SignoutRequestDto loginRequest) {
+    public ResponseEntity<ApiResponseDto> signout(@Parameter(hidden = true) @CurrentUser UserPrincipal currentUser, @Valid @RequestBody SignoutRequestDto loginRequest, HttpServletRequest request) {
         User user = userRepository.findById(currentUser.getId())
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", currentUser.getId()));
 
-        // Signout on server side.
+        // Signout on server side. The token is revoked until it expires, so it can't be used anymore.
+
+        Claims claims = tokenProvider.parseToken(tokenProvider.getJwtFromRequest(request));
+
+        if (claims != null && claims.getId() != null) {
+            tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration().toInstant());
+        }
 
         SecurityContextHolder.getContext().setAuthentication(null);
 
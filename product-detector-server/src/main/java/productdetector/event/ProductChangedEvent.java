@@ -0,0 +1,27 @@
+package productdetector.event;
+
+/**
+ * The ProductChangedEvent is published whenever a product is created, updated or deleted.
+ */
+public class ProductChangedEvent {
+
+    private final Long productId;
+
+    /**
+     * Constructor.
+     *
+     * @param productId The id of the changed product or null if all products might have changed.
+     */
+    public ProductChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public boolean isAllProducts() {
+        return productId == null;
+    }
+
+}
@@ -0,0 +1,23 @@
+package productdetector.event;
+
+/**
+ * The ProductMainImageChangedEvent is published whenever the main image of a product is written.
+ */
+public class ProductMainImageChangedEvent {
+
+    private final Long productId;
+
+    /**
+     * Constructor.
+     *
+     * @param productId The id of the product.
+     */
+    public ProductMainImageChangedEvent(Long productId) {
+        this.productId = productId;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+}
@@ -0,0 +1,23 @@
+package productdetector.event;
+
+/**
+ * The VisionModelChangedEvent is published whenever a vision model is (re-)trained.
+ */
+public class VisionModelChangedEvent {
+
+    private final String modelId;
+
+    /**
+     * Constructor.
+     *
+     * @param modelId The id of the changed vision model.
+     */
+    public VisionModelChangedEvent(String modelId) {
+        this.modelId = modelId;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+}
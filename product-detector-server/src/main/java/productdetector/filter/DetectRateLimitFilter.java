@@ -0,0 +1,213 @@
+package productdetector.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import productdetector.model.RoleName;
+import productdetector.payload.ApiResponseDto;
+import productdetector.security.UserPrincipal;
+import productdetector.util.RateLimiter;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+/**
+ * The DetectRateLimitFilter class limits the rate of detect requests per user. It runs after the
+ * JwtAuthenticationFilter and before the request body is read, so rejected requests never decode an image.
+ *
+ * The limits are configured per role, a user with several roles gets the most generous one. Anonymous requests are
+ * limited per remote address. A lane, e.g. a checkout lane, can be sent in an optional request header. Each lane
+ * gets a sub-limit on top of the user limit, so one busy lane can't use up the limit of a user's other lanes, while
+ * sending more lanes doesn't raise the user limit. Lane names which don't match the configured pattern are ignored.
+ *
+ * A request is charged one token per image. Since the number of images of a batch request is only known once the
+ * body has been read, the controller sets it as request attribute, and the remaining tokens are charged after the
+ * request has been handled. The buckets go into debt for them, so the following requests wait accordingly.
+ */
+public class DetectRateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DetectRateLimitFilter.class);
+
+    private static final String DETECT_PATH = "/api/v1/product/detect";
+
+    /**
+     * The request attribute with the number of images of a detect request, if it's more than one.
+     */
+    public static final String IMAGE_COUNT_ATTRIBUTE = DetectRateLimitFilter.class.getName() + ".imageCount";
+
+    private static final class Limit {
+
+        private final double tokensPerSecond;
+
+        private final int burst;
+
+        private Limit(double tokensPerSecond, int burst) {
+            this.tokensPerSecond = tokensPerSecond;
+            this.burst = burst;
+        }
+
+    }
+
+    @Autowired
+    private Environment env;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final RateLimiter rateLimiter = new RateLimiter();
+
+    private final Map<String, Limit> roleLimits = new HashMap<>();
+
+    private Limit anonymousLimit;
+
+    private Limit laneLimit;
+
+    private String laneHeader;
+
+    private Pattern lanePattern;
+
+    private Counter rejectedRequests;
+
+    @PostConstruct
+    public void init() {
+        for (RoleName roleName : RoleName.values()) {
+            Limit limit = getLimit("server.detectRateLimit.roles." + roleName.name());
+
+            if (limit != null) {
+                roleLimits.put(roleName.name(), limit);
+            }
+        }
+
+        anonymousLimit = getLimit("server.detectRateLimit.anonymous");
+        laneLimit = getLimit("server.detectRateLimit.lane");
+        laneHeader = env.getProperty("server.detectRateLimit.laneHeader", "X-Lane");
+        lanePattern = Pattern.compile(env.getProperty("server.detectRateLimit.lanePattern", "[A-Za-z0-9_-]{1,32}"));
+
+        rejectedRequests = meterRegistry.counter("detect.ratelimit.rejected");
+
+        meterRegistry.gauge("detect.ratelimit.buckets", rateLimiter, RateLimiter::size);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod()) || !request.getRequestURI().startsWith(DETECT_PATH);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+
+        String key;
+        Limit limit;
+
+        if (authentication != null && authentication.getPrincipal() instanceof UserPrincipal) {
+            key = "user:" + ((UserPrincipal) authentication.getPrincipal()).getId();
+            limit = getLimit(authentication);
+        } else {
+            key = "address:" + request.getRemoteAddr();
+            limit = anonymousLimit;
+        }
+
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        // The user limit is charged first, so a lane bucket is only created for requests within the user limit,
+        // which also bounds the number of lane buckets per user. A request rejected by its lane limit still counts
+        // against the user limit.
+
+        long waitInNs = rateLimiter.tryAcquire(key, limit.tokensPerSecond, limit.burst);
+
+        String lane = request.getHeader(laneHeader);
+        String laneKey = laneLimit != null && StringUtils.hasText(lane) && lanePattern.matcher(lane).matches() ? key + ":lane:" + lane : null;
+
+        if (waitInNs == 0 && laneKey != null) {
+            waitInNs = rateLimiter.tryAcquire(laneKey, laneLimit.tokensPerSecond, laneLimit.burst);
+        }
+
+        if (waitInNs > 0) {
+            rejectedRequests.increment();
+
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(RateLimiter.toRetryAfterInS(waitInNs)));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+
+            objectMapper.writeValue(response.getOutputStream(), new ApiResponseDto(false, "Too many detect requests."));
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            Object imageCount = request.getAttribute(IMAGE_COUNT_ATTRIBUTE);
+
+            if (imageCount instanceof Integer && (Integer) imageCount > 1) {
+                rateLimiter.charge(key, limit.tokensPerSecond, (Integer) imageCount - 1);
+
+                if (laneKey != null) {
+                    rateLimiter.charge(laneKey, laneLimit.tokensPerSecond, (Integer) imageCount - 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes idle buckets, so users and lanes which stopped sending requests don't keep memory.
+     */
+    @Scheduled(fixedDelayString = "${server.detectRateLimit.evictionIntervalInMs:60000}")
+    public void evictIdleBuckets() {
+        rateLimiter.evictIdle();
+
+        LOGGER.debug("Detect rate limit buckets evicted ({} remaining).", rateLimiter.size());
+    }
+
+    private Limit getLimit(Authentication authentication) {
+        Limit result = null;
+
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            Limit limit = roleLimits.get(authority.getAuthority());
+
+            if (limit != null && (result == null || limit.tokensPerSecond > result.tokensPerSecond)) {
+                result = limit;
+            }
+        }
+
+        return result;
+    }
+
+    private Limit getLimit(String prefix) {
+        Double tokensPerSecond = env.getProperty(prefix + ".requestsPerS", Double.class);
+
+        if (tokensPerSecond == null || tokensPerSecond <= 0) {
+            return null;
+        }
+
+        return new Limit(tokensPerSecond, env.getProperty(prefix + ".burst", Integer.class, 1));
+    }
+
+}
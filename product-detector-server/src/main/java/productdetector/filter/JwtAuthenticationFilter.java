@@ -1,5 +1,6 @@
 package productdetector.filter;
 
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,6 +12,8 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 import productdetector.security.CustomUserDetailsService;
 import productdetector.security.JwtTokenProvider;
+import productdetector.security.UserPrincipal;
+import productdetector.service.TokenRevocationService;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -26,21 +29,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService customUserDetailsService;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
         try {
-            String jwt = getJwtFromRequest(request);
+            String jwt = tokenProvider.getJwtFromRequest(request);
+
+            Claims claims = StringUtils.hasText(jwt) ? tokenProvider.parseToken(jwt) : null;
+
+            // Tokens issued before they contained an id can't be revoked and are only rejected once they expire.
+
+            if (claims != null && !tokenRevocationService.isTokenRevoked(claims.getId())) {
+                // The principal is built from the signed claims. Only tokens issued before the claims contained the
+                // roles require loading the user.
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                Long userId = tokenProvider.getUserIdFromJWT(jwt);
+                UserDetails userDetails = tokenProvider.getUserPrincipal(claims);
 
-                UserDetails userDetails = customUserDetailsService.loadUserById(userId);
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                if (userDetails == null) {
+                    userDetails = customUserDetailsService.loadUserById(Long.parseLong(claims.getSubject()));
+                }
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                if (customUserDetailsService.isUserEnabled(((UserPrincipal) userDetails).getId())) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             LOGGER.error("Could not set user authentication in security context", ex);
@@ -48,12 +66,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         filterChain.doFilter(request, response);
     }
-
-    private String getJwtFromRequest(HttpServletRequest request) {
-        String bearerToken = request.getHeader("Authorization");
-        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
-            return bearerToken.substring(7, bearerToken.length());
-        }
-        return null;
-    }
 }
@@ -38,6 +38,7 @@ public class RedirectToFrontendWebServerFilter extends OncePerRequestFilter {
                 && !path.contains("/v3/api-docs")     // swagger
                 && !path.contains("/webjars")         // swagger
                 && !path.contains("/swagger-ui")      // swagger
+                && !path.contains("/actuator")        // metrics
                 && !path.contains("/api/")) {
                 String bearerToken = request.getHeader("Authorization");
                 String requestURL = request.getRequestURL().toString();
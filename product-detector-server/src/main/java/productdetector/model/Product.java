@@ -1,12 +1,16 @@
 package productdetector.model;
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "TPRODUCT")
 public class Product {
 
@@ -15,19 +19,12 @@ public class Product {
     @Column(name="ID")
     private Long id;
 
-    @Column(name="NAME")
+    @Column(name="NAME", nullable = false)
     private String name;
 
     @Column(name="NOTES")
     private String notes;
 
-    @Lob
-    @Column(name="MAIN_IMAGE")
-    private byte[] mainImage;
-
-    @Column(name="MAIN_IMAGE_TYPE")
-    private String mainImageType;
-
     @NotNull
     @Column(name="ACTIVE")
     private Boolean active;
@@ -0,0 +1,39 @@
+package productdetector.model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+
+/**
+ * A downscaled rendition of a product main image.
+ */
+@Data
+@Entity
+@Table(name = "TPRODUCT_IMAGE_RENDITION")
+public class ProductImageRendition {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name="ID")
+    private Long id;
+
+    @Column(name="PRODUCT_ID")
+    private Long productId;
+
+    /**
+     * The maximum width and height in pixels.
+     */
+    @Column(name="IMAGE_SIZE")
+    private Integer imageSize;
+
+    @Lob
+    @Column(name="IMAGE")
+    private byte[] image;
+
+    /**
+     * The hash of the main image this rendition was created from.
+     */
+    @Column(name="IMAGE_HASH")
+    private String imageHash;
+
+}
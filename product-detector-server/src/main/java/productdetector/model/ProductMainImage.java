@@ -0,0 +1,32 @@
+package productdetector.model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+
+/**
+ * The main image of a product. It's stored apart from the product, so product queries never load image data.
+ */
+@Data
+@Entity
+@Table(name = "TPRODUCT_MAIN_IMAGE")
+public class ProductMainImage {
+
+    @Id
+    @Column(name="PRODUCT_ID")
+    private Long productId;
+
+    @Lob
+    @Column(name="IMAGE")
+    private byte[] image;
+
+    @Column(name="IMAGE_TYPE")
+    private String imageType;
+
+    /**
+     * The SHA-256 hash of the image, which identifies the image version in image URLs and ETags.
+     */
+    @Column(name="IMAGE_HASH")
+    private String imageHash;
+
+}
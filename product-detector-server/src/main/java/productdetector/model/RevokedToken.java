@@ -0,0 +1,23 @@
+package productdetector.model;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+@Data
+@Entity
+@Table(name = "TREVOKED_TOKEN")
+public class RevokedToken {
+
+    @Id
+    @Column(name="TOKEN_ID")
+    private String tokenId;
+
+    @Column(name="EXPIRES_AT")
+    private Instant expiresAt;
+
+    @Column(name="REVOKED_AT")
+    private Instant revokedAt;
+
+}
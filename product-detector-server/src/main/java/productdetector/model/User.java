@@ -2,6 +2,8 @@ package productdetector.model;
 
 
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
@@ -12,6 +14,8 @@ import java.util.Set;
 
 @Data
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "TUSER")
 public class User {
 
@@ -34,6 +38,7 @@ public class User {
     @Column(name="ENABLED")
     private Boolean enabled = false;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "TUSER_ROLE",
             joinColumns = @JoinColumn(name = "USER_ID"),
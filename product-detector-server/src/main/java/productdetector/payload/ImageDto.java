@@ -1,6 +1,8 @@
 package productdetector.payload;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
+import productdetector.util.DataUriDeserializer;
 
 @Data
 public class ImageDto {
@@ -11,6 +13,12 @@ public class ImageDto {
 
     private String dataEncoding;
 
-    private String data;
+    /**
+     * The image data, sent as base64 data URI or plain base64 string. The JSON parser buffers the whole string, which
+     * takes about 2.7 times the image size while it's decoded (see DataUriDeserializer). Single images can be sent as
+     * binary (octet stream or multipart) to the detect endpoint instead, which only buffers the image itself.
+     */
+    @JsonDeserialize(using = DataUriDeserializer.class)
+    private byte[] data;
 
 }
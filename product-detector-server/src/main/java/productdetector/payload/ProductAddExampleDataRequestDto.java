@@ -1,10 +1,18 @@
 package productdetector.payload;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
+import productdetector.util.DataUriDeserializer;
 
 @Data
 public class ProductAddExampleDataRequestDto {
 
-    private String productImage;
+    /**
+     * The image data, sent as base64 data URI or plain base64 string. The JSON parser buffers the whole string, which
+     * takes about 2.7 times the image size while it's decoded (see DataUriDeserializer). The image can be sent as
+     * binary (octet stream or multipart) instead, which only buffers the image itself.
+     */
+    @JsonDeserialize(using = DataUriDeserializer.class)
+    private byte[] productImage;
 
 }
@@ -2,11 +2,13 @@ package productdetector.payload;
 
 import lombok.Data;
 
+import javax.validation.constraints.NotBlank;
 import java.util.List;
 
 @Data
 public class ProductCreateRequestDto {
 
+    @NotBlank
     private String name;
 
     private String notes;
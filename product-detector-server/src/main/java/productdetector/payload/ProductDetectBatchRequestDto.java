@@ -0,0 +1,14 @@
+package productdetector.payload;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductDetectBatchRequestDto {
+
+    private List<ImageDto> images;
+
+    private Boolean mergeResults;
+
+}
@@ -0,0 +1,25 @@
+package productdetector.payload;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ProductDetectBatchResponseDto {
+
+    @Data
+    public static class ResultDto {
+
+        private Integer index;
+
+        private List<ProductDetectResponseDto.ProductDto> products;
+
+        private String error;
+
+    }
+
+    private List<ResultDto> results;
+
+    private List<ProductDetectResponseDto.ProductDto> mergedProducts;
+
+}
@@ -21,6 +21,8 @@ public class ProductDetectResponseDto {
 
         private String mainImage;
 
+        private String mainImageUrl;
+
     }
 
     private List<ProductDto> products;
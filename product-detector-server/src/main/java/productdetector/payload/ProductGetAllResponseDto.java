@@ -20,4 +20,9 @@ public class ProductGetAllResponseDto {
 
     private List<ProductDto> products;
 
+    /**
+     * The cursor of the next page or null if this is the last page.
+     */
+    private String nextCursor;
+
 }
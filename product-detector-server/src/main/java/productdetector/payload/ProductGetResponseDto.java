@@ -15,4 +15,6 @@ public class ProductGetResponseDto {
 
     private String mainImage;
 
+    private String mainImageUrl;
+
 }
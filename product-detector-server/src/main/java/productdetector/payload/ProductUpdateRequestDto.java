@@ -1,6 +1,8 @@
 package productdetector.payload;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
+import productdetector.util.DataUriDeserializer;
 
 import java.util.List;
 
@@ -13,6 +15,11 @@ public class ProductUpdateRequestDto {
 
     private String notes;
 
-    private String mainImage;
+    /**
+     * The main image, sent as base64 data URI or plain base64 string. The JSON parser buffers the whole string, which
+     * takes about 2.7 times the image size while it's decoded (see DataUriDeserializer).
+     */
+    @JsonDeserialize(using = DataUriDeserializer.class)
+    private byte[] mainImage;
 
 }
@@ -0,0 +1,41 @@
+package productdetector.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import productdetector.model.ProductImageRendition;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductImageRenditionRepository extends JpaRepository<ProductImageRendition, Long> {
+
+    /**
+     * Returns a rendition of the current main image, renditions of a previous main image are ignored.
+     */
+    @Query("SELECT r.image FROM ProductImageRendition r, ProductMainImage i " +
+           "WHERE r.productId = :productId AND r.imageSize = :imageSize AND i.productId = r.productId AND i.imageHash = r.imageHash")
+    byte[] findCurrentImage(@Param("productId") Long productId, @Param("imageSize") Integer imageSize);
+
+    @Query("SELECT r.productId AS productId, r.image AS thumbnailImage FROM ProductImageRendition r, ProductMainImage i " +
+           "WHERE r.productId IN :productIds AND r.imageSize = :imageSize AND i.productId = r.productId AND i.imageHash = r.imageHash")
+    List<ProductThumbnail> findCurrentImages(@Param("productIds") Collection<Long> productIds, @Param("imageSize") Integer imageSize);
+
+    @Query("SELECT r.id FROM ProductImageRendition r WHERE r.productId = :productId AND r.imageSize = :imageSize")
+    Long findIdByProductIdAndImageSize(@Param("productId") Long productId, @Param("imageSize") Integer imageSize);
+
+    /**
+     * Returns the products whose main image lacks at least one of the given number of current renditions.
+     */
+    @Query("SELECT i.productId FROM ProductMainImage i WHERE i.imageHash IS NOT NULL AND " +
+           "(SELECT COUNT(r) FROM ProductImageRendition r WHERE r.productId = i.productId AND r.imageHash = i.imageHash) < :renditionCount")
+    List<Long> findProductIdsWithMissingRenditions(@Param("renditionCount") long renditionCount);
+
+    @Modifying
+    @Query("DELETE FROM ProductImageRendition r WHERE r.productId = :productId")
+    int deleteRenditionsByProductId(@Param("productId") Long productId);
+
+}
@@ -0,0 +1,13 @@
+package productdetector.repository;
+
+
+/**
+ * The ProductImageVersion interface is a projection of the content hash of a product main image.
+ */
+public interface ProductImageVersion {
+
+    Long getProductId();
+
+    String getImageHash();
+
+}
@@ -0,0 +1,42 @@
+package productdetector.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import productdetector.model.ProductMainImage;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ProductMainImageRepository extends JpaRepository<ProductMainImage, Long> {
+
+    @Query("SELECT i.productId AS productId, i.imageHash AS imageHash FROM ProductMainImage i WHERE i.productId IN :productIds")
+    List<ProductImageVersion> findImageVersionsByProductIdIn(@Param("productIds") Collection<Long> productIds);
+
+    @Query("SELECT i.imageHash FROM ProductMainImage i WHERE i.productId = :productId")
+    String findImageHashByProductId(@Param("productId") Long productId);
+
+    /**
+     * Returns the image hash and locks the main image until the end of the transaction, so it can't be replaced
+     * meanwhile. Only the hash is read, not the image.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i.imageHash FROM ProductMainImage i WHERE i.productId = :productId")
+    String findAndLockImageHashByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT i.image FROM ProductMainImage i WHERE i.productId = :productId")
+    byte[] findImageByProductId(@Param("productId") Long productId);
+
+    @Query("SELECT i.productId FROM ProductMainImage i WHERE i.imageHash IS NULL")
+    List<Long> findProductIdsWithoutImageHash();
+
+    @Modifying
+    @Query("DELETE FROM ProductMainImage i WHERE i.productId = :productId")
+    int deleteImageByProductId(@Param("productId") Long productId);
+
+}
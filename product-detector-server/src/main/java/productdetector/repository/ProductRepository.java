@@ -1,17 +1,43 @@
 package productdetector.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import productdetector.model.Product;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Product> findByName(String name);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<Product> findByVisionLabel(String visionLabel);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Product> findByVisionLabelInAndActiveTrue(Collection<String> visionLabels);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    List<Product> findByActiveTrue();
+
+    @Query("SELECT p.id AS id, p.name AS name, p.notes AS notes FROM Product p ORDER BY p.name, p.id")
+    List<ProductSummary> findSummaries(Pageable pageable);
+
+    /**
+     * Returns the products following a product in the (name, id) order, so a page is read from the index without
+     * skipping the rows of the previous pages.
+     */
+    @Query("SELECT p.id AS id, p.name AS name, p.notes AS notes FROM Product p " +
+           "WHERE p.name > :name OR (p.name = :name AND p.id > :id) ORDER BY p.name, p.id")
+    List<ProductSummary> findSummariesAfter(@Param("name") String name, @Param("id") Long id, Pageable pageable);
+
 }
 
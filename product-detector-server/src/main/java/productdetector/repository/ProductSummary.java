@@ -0,0 +1,16 @@
+package productdetector.repository;
+
+
+/**
+ * The ProductSummary interface is a projection of the product columns needed for listings. It doesn't contain the
+ * image columns, so listing queries never load them.
+ */
+public interface ProductSummary {
+
+    Long getId();
+
+    String getName();
+
+    String getNotes();
+
+}
@@ -0,0 +1,13 @@
+package productdetector.repository;
+
+
+/**
+ * The ProductThumbnail interface is a projection of the thumbnail of a product main image.
+ */
+public interface ProductThumbnail {
+
+    Long getProductId();
+
+    byte[] getThumbnailImage();
+
+}
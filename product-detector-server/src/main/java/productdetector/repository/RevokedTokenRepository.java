@@ -0,0 +1,31 @@
+package productdetector.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import productdetector.model.RevokedToken;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    @Query("SELECT t.tokenId FROM RevokedToken t WHERE t.expiresAt > :now AND t.tokenId > :afterTokenId ORDER BY t.tokenId")
+    List<String> findTokenIdsByExpiresAtAfter(@Param("now") Instant now, @Param("afterTokenId") String afterTokenId, Pageable pageable);
+
+    @Query("SELECT t.tokenId FROM RevokedToken t WHERE t.revokedAt >= :since AND t.expiresAt > :now")
+    List<String> findTokenIdsByRevokedAtAfter(@Param("since") Instant since, @Param("now") Instant now);
+
+    boolean existsByTokenIdAndExpiresAtAfter(String tokenId, Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RevokedToken t WHERE t.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+
+}
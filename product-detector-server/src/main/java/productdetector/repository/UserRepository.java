@@ -1,15 +1,23 @@
 package productdetector.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import productdetector.model.User;
 
+import javax.persistence.QueryHint;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<User> findByUsername(String username);
 
+    @Query("SELECT u.enabled FROM User u WHERE u.id = :id")
+    Optional<Boolean> findEnabledById(@Param("id") Long id);
+
 }
@@ -1,6 +1,9 @@
 package productdetector.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,12 +14,31 @@ import productdetector.exception.ResourceNotFoundException;
 import productdetector.model.User;
 import productdetector.repository.UserRepository;
 
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
 
     @Autowired
     private UserRepository userRepository;
 
+    @Value("${server.userEnabledCacheTtlInMs}")
+    private long userEnabledCacheTtlInMs;
+
+    @Value("${server.userEnabledCacheMaxEntries}")
+    private int userEnabledCacheMaxEntries;
+
+    private Cache<Long, Boolean> userEnabledCache;
+
+    @PostConstruct
+    public void init() {
+        userEnabledCache = Caffeine.newBuilder()
+                .maximumSize(userEnabledCacheMaxEntries)
+                .expireAfterWrite(userEnabledCacheTtlInMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
     @Override
     @Transactional
     public UserDetails loadUserByUsername(String username)
@@ -41,4 +63,15 @@ public class CustomUserDetailsService implements UserDetailsService {
 
         return UserPrincipal.create(user);
     }
+
+    /**
+     * Checks whether a user exists and is enabled. The result is cached for a short time, so disabling a user takes
+     * effect within the cache time to live.
+     *
+     * @param id The user id.
+     * @return Returns true if the user exists and is enabled.
+     */
+    public boolean isUserEnabled(Long id) {
+        return userEnabledCache.get(id, key -> userRepository.findEnabledById(key).orElse(false));
+    }
 }
\ No newline at end of file
@@ -1,53 +1,139 @@
 package productdetector.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.servlet.http.HttpServletRequest;
+import java.util.Collection;
 import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Component
 public class JwtTokenProvider {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(JwtTokenProvider.class);
 
+    private static final String CLAIM_USERNAME = "username";
+
+    private static final String CLAIM_ROLES = "roles";
+
     @Value("${server.jwtSecret}")
     private String jwtSecret;
 
     @Value("${server.jwtExpirationInMs}")
     private int jwtExpirationInMs;
 
+    @Value("${server.jwtCacheMaxEntries}")
+    private int jwtCacheMaxEntries;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private Cache<String, Claims> verifiedTokenCache;
+
+    private Counter verifiedTokenCacheHits;
+
+    private Counter verifiedTokenCacheMisses;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokenCache = Caffeine.newBuilder()
+                .maximumSize(jwtCacheMaxEntries)
+                .expireAfter(new Expiry<String, Claims>() {
+
+                    @Override
+                    public long expireAfterCreate(String token, Claims claims, long currentTime) {
+                        if (claims.getExpiration() == null) {
+                            return TimeUnit.MILLISECONDS.toNanos(jwtExpirationInMs);
+                        }
+
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(0, claims.getExpiration().getTime() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, Claims claims, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                })
+                .build();
+
+        verifiedTokenCacheHits = meterRegistry.counter("security.jwt.cache", "result", "hit");
+        verifiedTokenCacheMisses = meterRegistry.counter("security.jwt.cache", "result", "miss");
+
+        meterRegistry.gauge("security.jwt.cache.size", verifiedTokenCache, Cache::estimatedSize);
+    }
+
     public String generateToken(Authentication authentication) {
         UserPrincipal userPrincipal = (UserPrincipal) authentication.getPrincipal();
 
         Date now = new Date();
         Date expiryDate = new Date(now.getTime() + jwtExpirationInMs);
 
+        List<String> roles = userPrincipal.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.toList());
+
         return Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(Long.toString(userPrincipal.getId()))
+                .claim(CLAIM_USERNAME, userPrincipal.getUsername())
+                .claim(CLAIM_ROLES, roles)
                 .setIssuedAt(new Date())
                 .setExpiration(expiryDate)
                 .signWith(SignatureAlgorithm.HS512, jwtSecret)
                 .compact();
     }
 
-    public Long getUserIdFromJWT(String token) {
-        Claims claims = Jwts.parser()
-                .setSigningKey(jwtSecret)
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * Verifies a token and returns its claims. The token is parsed only once, and the claims of verified tokens are
+     * cached by token until the token expires, so a reused token isn't verified again. The cache is concurrent and
+     * doesn't lock on reads.
+     *
+     * @param authToken The token.
+     * @return Returns the claims or null if the token isn't valid.
+     */
+    public Claims parseToken(String authToken) {
+        if (authToken == null) {
+            return null;
+        }
+
+        Claims claims = verifiedTokenCache.getIfPresent(authToken);
 
-        return Long.parseLong(claims.getSubject());
-    }
+        if (claims != null) {
+            verifiedTokenCacheHits.increment();
+            return claims;
+        }
+
+        verifiedTokenCacheMisses.increment();
 
-    public boolean validateToken(String authToken) {
         try {
-            Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-            
-            return true;
+            claims = Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken).getBody();
+
+            verifiedTokenCache.put(authToken, claims);
+
+            return claims;
         } catch (SignatureException ex) {
             LOGGER.error("Invalid JWT signature");
         } catch (MalformedJwtException ex) {
@@ -60,6 +146,39 @@ public class JwtTokenProvider {
             LOGGER.error("JWT claims string is empty.");
         }
 
-        return false;
+        return null;
+    }
+
+    /**
+     * Creates the user principal from the claims of a verified token.
+     *
+     * @param claims The claims.
+     * @return Returns the user principal or null if the token was issued without roles.
+     */
+    public UserPrincipal getUserPrincipal(Claims claims) {
+        Object roles = claims.get(CLAIM_ROLES);
+
+        if (!(roles instanceof Collection)) {
+            return null;
+        }
+
+        return UserPrincipal.create(
+                Long.parseLong(claims.getSubject()),
+                claims.get(CLAIM_USERNAME, String.class),
+                ((Collection<?>) roles).stream().map(Object::toString).collect(Collectors.toList()));
+    }
+
+    /**
+     * Returns the bearer token of a request.
+     *
+     * @param request The request.
+     * @return Returns the token or null if the request doesn't contain a bearer token.
+     */
+    public String getJwtFromRequest(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7, bearerToken.length());
+        }
+        return null;
     }
 }
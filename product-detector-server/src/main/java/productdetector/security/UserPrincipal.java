@@ -49,6 +49,28 @@ public class UserPrincipal implements UserDetails {
         );
     }
 
+    /**
+     * Creates a user principal from the claims of a verified token, without loading the user.
+     *
+     * @param id The user id.
+     * @param username The username.
+     * @param roleNames The role names.
+     * @return Returns a UserPrincipal object without user entity and password.
+     */
+    public static UserPrincipal create(Long id, String username, Collection<String> roleNames) {
+        List<GrantedAuthority> authorities = roleNames.stream()
+            .map(SimpleGrantedAuthority::new)
+            .collect(Collectors.toList());
+
+        return new UserPrincipal(
+                null,
+                id,
+                username,
+                null,
+                authorities
+        );
+    }
+
     public User getUser() {
         return user;
     }
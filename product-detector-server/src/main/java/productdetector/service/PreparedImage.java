@@ -0,0 +1,27 @@
+package productdetector.service;
+
+import lombok.Value;
+import vision.client.StreamingImage;
+
+
+/**
+ * The PreparedImage class holds an uploaded image in the form the Vision API expects it.
+ */
+@Value
+public class PreparedImage {
+
+    /**
+     * The image data, which is base64 encoded while it is sent to the Vision API.
+     */
+    StreamingImage image;
+
+    int width;
+
+    int height;
+
+    /**
+     * The SHA-256 hash of the uploaded image data.
+     */
+    String contentHash;
+
+}
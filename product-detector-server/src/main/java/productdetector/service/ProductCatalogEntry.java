@@ -0,0 +1,24 @@
+package productdetector.service;
+
+import lombok.Value;
+
+
+/**
+ * The ProductCatalogEntry class is an immutable snapshot of an active product as used by the product detection.
+ */
+@Value
+public class ProductCatalogEntry {
+
+    Long id;
+
+    String name;
+
+    String notes;
+
+    String visionLabel;
+
+    String mainImage;
+
+    String mainImageUrl;
+
+}
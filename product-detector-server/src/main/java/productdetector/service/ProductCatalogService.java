@@ -0,0 +1,26 @@
+package productdetector.service;
+
+import javax.validation.constraints.NotNull;
+import java.util.Collection;
+import java.util.Map;
+
+
+/**
+ * The ProductCatalogService interface defines methods to look up active products by their vision label.
+ */
+public interface ProductCatalogService {
+
+    /**
+     * Looks up the active products for the given vision labels. Labels without an active product are skipped.
+     *
+     * @param visionLabels The vision labels.
+     * @return Returns a map of vision labels to products.
+     */
+    Map<String, ProductCatalogEntry> findActiveProductsByVisionLabels(@NotNull Collection<String> visionLabels);
+
+    /**
+     * Reloads all products from the database.
+     */
+    void reload();
+
+}
@@ -0,0 +1,157 @@
+package productdetector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import productdetector.event.ProductChangedEvent;
+import productdetector.model.Product;
+import productdetector.repository.ProductRepository;
+import productdetector.util.ImageUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+
+/**
+ * This ProductCatalogServiceImpl service class implements the ProductCatalogService interface.
+ *
+ * The active products are kept in an immutable vision label index. Changes replace the whole index atomically, so
+ * lookups never lock and never see a partially updated index.
+ */
+@Service
+public class ProductCatalogServiceImpl implements ProductCatalogService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCatalogServiceImpl.class);
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    private volatile Map<String, ProductCatalogEntry> index;
+
+    /**
+     * @see productdetector.service.ProductCatalogService#findActiveProductsByVisionLabels(Collection)
+     */
+    @Override
+    public Map<String, ProductCatalogEntry> findActiveProductsByVisionLabels(Collection<String> visionLabels) {
+        Map<String, ProductCatalogEntry> currentIndex = getIndex();
+
+        Map<String, ProductCatalogEntry> result = new HashMap<>();
+
+        if (currentIndex != null) {
+            for (String visionLabel : visionLabels) {
+                ProductCatalogEntry entry = currentIndex.get(visionLabel);
+
+                if (entry != null) {
+                    result.put(visionLabel, entry);
+                }
+            }
+        } else if (!visionLabels.isEmpty()) {
+            // Fall back to a single query if the index isn't available.
+
+            for (Product product : productRepository.findByVisionLabelInAndActiveTrue(visionLabels)) {
+                result.put(product.getVisionLabel(), toEntry(product));
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * @see productdetector.service.ProductCatalogService#reload()
+     */
+    @Override
+    public synchronized void reload() {
+        Map<String, ProductCatalogEntry> newIndex = new HashMap<>();
+
+        List<Product> products = productRepository.findByActiveTrue();
+
+        // The thumbnails of all products are loaded with a single query.
+
+        List<Long> productIds = products.stream().map(Product::getId).collect(Collectors.toList());
+
+        Map<Long, byte[]> thumbnails = productService.getProductThumbnails(productIds);
+        Map<Long, String> imageUrls = productService.getProductImageUrls(productIds);
+
+        for (Product product : products) {
+            if (product.getVisionLabel() != null) {
+                newIndex.put(product.getVisionLabel(), toEntry(product, thumbnails.get(product.getId()), imageUrls.get(product.getId())));
+            }
+        }
+
+        index = Collections.unmodifiableMap(newIndex);
+
+        LOGGER.info("Product catalog loaded ({} active products).", newIndex.size());
+    }
+
+    /**
+     * Updates the index after a product change has been committed.
+     *
+     * @param event The product changed event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onProductChanged(ProductChangedEvent event) {
+        if (index == null) {
+            // Not loaded yet, the first lookup loads the current state anyway.
+            return;
+        }
+
+        try {
+            if (event.isAllProducts()) {
+                reload();
+                return;
+            }
+
+            Map<String, ProductCatalogEntry> newIndex = new HashMap<>(index);
+
+            newIndex.values().removeIf(e -> e.getId().equals(event.getProductId()));
+
+            productRepository.findById(event.getProductId())
+                    .filter(product -> Boolean.TRUE.equals(product.getActive()) && product.getVisionLabel() != null)
+                    .ifPresent(product -> newIndex.put(product.getVisionLabel(), toEntry(product)));
+
+            index = Collections.unmodifiableMap(newIndex);
+        } catch (Exception e) {
+            LOGGER.error("Can't update product catalog, falling back to database queries.", e);
+            index = null;
+        }
+    }
+
+    private Map<String, ProductCatalogEntry> getIndex() {
+        Map<String, ProductCatalogEntry> currentIndex = index;
+
+        if (currentIndex == null) {
+            synchronized (this) {
+                try {
+                    if (index == null) {
+                        reload();
+                    }
+                    currentIndex = index;
+                } catch (Exception e) {
+                    LOGGER.error("Can't load product catalog.", e);
+                }
+            }
+        }
+
+        return currentIndex;
+    }
+
+    private ProductCatalogEntry toEntry(Product product) {
+        return toEntry(product, productService.getProductThumbnail(product), productService.getProductImageUrl(product));
+    }
+
+    private ProductCatalogEntry toEntry(Product product, byte[] thumbnail, String imageUrl) {
+        return new ProductCatalogEntry(
+                product.getId(),
+                product.getName(),
+                product.getNotes(),
+                product.getVisionLabel(),
+                thumbnail != null ? ImageUtils.toJpegDataUri(thumbnail) : null,
+                imageUrl);
+    }
+
+}
@@ -0,0 +1,44 @@
+package productdetector.service;
+
+import productdetector.payload.ProductDetectResponseDto;
+
+import javax.validation.constraints.NotNull;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+
+/**
+ * The ProductDetectService interface defines methods to detect products on images.
+ */
+public interface ProductDetectService {
+
+    /**
+     * Detects the products on an image with the default vision model. The Vision API is called asynchronously, so
+     * the calling thread isn't blocked while the image is classified.
+     *
+     * @param image The prepared image.
+     * @return Returns a CompletableFuture with the detected active products ordered by probability. The future
+     *         completes exceptionally with a TimeoutException if the Vision API doesn't respond in time.
+     */
+    CompletableFuture<List<ProductDetectResponseDto.ProductDto>> detectProducts(@NotNull PreparedImage image);
+
+    /**
+     * Detects the products on several images of the same item. The vision model is resolved once and the images
+     * are sent to the Vision API with bounded concurrency.
+     *
+     * @param images The prepared images.
+     * @return Returns one CompletableFuture per image, in the order of the images. Each future completes like the
+     *         future returned by {@link #detectProducts(PreparedImage)}.
+     */
+    List<CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> detectProducts(@NotNull List<PreparedImage> images);
+
+    /**
+     * Merges the detection results of several images of the same item into one ranking. The probability of a product
+     * is averaged over all images, so products which are detected consistently rank higher.
+     *
+     * @param results The detection results per image.
+     * @return Returns the merged products ordered by probability.
+     */
+    List<ProductDetectResponseDto.ProductDto> mergeProducts(@NotNull List<List<ProductDetectResponseDto.ProductDto>> results);
+
+}
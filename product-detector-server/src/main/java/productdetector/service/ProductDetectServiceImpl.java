@@ -0,0 +1,294 @@
+package productdetector.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import productdetector.event.ProductChangedEvent;
+import productdetector.event.VisionModelChangedEvent;
+import productdetector.payload.ProductDetectResponseDto;
+import productdetector.util.LruCache;
+import productdetector.util.Utils;
+import vision.client.generated.vision.client.invoker.ApiResponse;
+import vision.client.generated.vision.client.model.ModelDetectRequest;
+import vision.client.generated.vision.client.model.ModelDetectResponse;
+import vision.client.generated.vision.client.model.ModelDetectResponseDetectedObjects;
+
+import javax.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+
+/**
+ * This ProductDetectServiceImpl service class implements the ProductDetectService interface.
+ */
+@Service
+public class ProductDetectServiceImpl implements ProductDetectService {
+
+    @Autowired
+    private VisionService visionService;
+
+    @Autowired
+    private ProductCatalogService productCatalogService;
+
+    @Autowired
+    @Qualifier("visionApiExecutor")
+    private Executor visionApiExecutor;
+
+    @Value("${vision.detect.timeoutInMs}")
+    private long detectTimeoutInMs;
+
+    @Value("${vision.detect.batch.maxConcurrency}")
+    private int batchMaxConcurrency;
+
+    @Value("${vision.detect.cache.maxEntries}")
+    private int cacheMaxEntries;
+
+    @Value("${vision.detect.cache.ttlInS}")
+    private long cacheTtlInS;
+
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
+    private LruCache<String, List<ProductDetectResponseDto.ProductDto>> resultCache;
+
+    private final Map<String, CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> inFlightDetections = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        if (cacheMaxEntries > 0 && cacheTtlInS > 0) {
+            resultCache = new LruCache<>(cacheMaxEntries, TimeUnit.SECONDS.toMillis(cacheTtlInS));
+        }
+    }
+
+    /**
+     * @see productdetector.service.ProductDetectService#detectProducts(PreparedImage)
+     */
+    @Override
+    public CompletableFuture<List<ProductDetectResponseDto.ProductDto>> detectProducts(PreparedImage image) {
+        return detectProducts(visionService.getVisionModelId(), image);
+    }
+
+    /**
+     * @see productdetector.service.ProductDetectService#detectProducts(List)
+     */
+    @Override
+    public List<CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> detectProducts(List<PreparedImage> images) {
+        String modelId = visionService.getVisionModelId();
+
+        List<CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> results = new ArrayList<>(images.size());
+
+        for (int i = 0; i < images.size(); i++) {
+            results.add(new CompletableFuture<>());
+        }
+
+        // Each worker sends the next pending image as soon as its previous Vision API request has completed, so at
+        // most batchMaxConcurrency requests are in flight without blocking a thread. A timed out image doesn't free
+        // its worker before the request has actually completed.
+
+        AtomicInteger nextIndex = new AtomicInteger();
+
+        for (int i = 0; i < Math.min(batchMaxConcurrency, images.size()); i++) {
+            detectNext(modelId, images, results, nextIndex);
+        }
+
+        return results;
+    }
+
+    /**
+     * @see productdetector.service.ProductDetectService#mergeProducts(List)
+     */
+    @Override
+    public List<ProductDetectResponseDto.ProductDto> mergeProducts(List<List<ProductDetectResponseDto.ProductDto>> results) {
+        Map<Long, ProductDetectResponseDto.ProductDto> mergedProducts = new LinkedHashMap<>();
+        Map<Long, BigDecimal> probabilitySums = new HashMap<>();
+
+        for (List<ProductDetectResponseDto.ProductDto> products : results) {
+            // A product which is detected several times in one image counts once, with its highest probability.
+
+            Map<Long, BigDecimal> imageProbabilities = new HashMap<>();
+
+            for (ProductDetectResponseDto.ProductDto product : products) {
+                mergedProducts.putIfAbsent(product.getId(), product);
+                imageProbabilities.merge(product.getId(), product.getProbability(), BigDecimal::max);
+            }
+
+            imageProbabilities.forEach((productId, probability) -> probabilitySums.merge(productId, probability, BigDecimal::add));
+        }
+
+        BigDecimal imageCount = BigDecimal.valueOf(Math.max(1, results.size()));
+
+        List<ProductDetectResponseDto.ProductDto> products = new LinkedList<>();
+
+        for (ProductDetectResponseDto.ProductDto mergedProduct : mergedProducts.values()) {
+            products.add(Utils.touch(new ProductDetectResponseDto.ProductDto(), e -> {
+                e.setId(mergedProduct.getId());
+                e.setName(mergedProduct.getName());
+                e.setNotes(mergedProduct.getNotes());
+                e.setProbability(probabilitySums.get(mergedProduct.getId()).divide(imageCount, MathContext.DECIMAL64));
+                e.setMainImage(mergedProduct.getMainImage());
+                e.setMainImageUrl(mergedProduct.getMainImageUrl());
+            }));
+        }
+
+        products.sort(Comparator.comparing(ProductDetectResponseDto.ProductDto::getProbability).reversed());
+
+        return products;
+    }
+
+    private void detectNext(String modelId,
+                            List<PreparedImage> images,
+                            List<CompletableFuture<List<ProductDetectResponseDto.ProductDto>>> results,
+                            AtomicInteger nextIndex) {
+        int index = nextIndex.getAndIncrement();
+
+        if (index >= images.size()) {
+            return;
+        }
+
+        CompletableFuture<List<ProductDetectResponseDto.ProductDto>> result = results.get(index);
+
+        try {
+            CompletableFuture<List<ProductDetectResponseDto.ProductDto>> request = requestDetection(modelId, images.get(index));
+
+            withTimeout(request).whenComplete((products, throwable) -> {
+                if (throwable != null) {
+                    result.completeExceptionally(throwable);
+                } else {
+                    result.complete(products);
+                }
+            });
+
+            request.whenComplete((products, throwable) -> detectNext(modelId, images, results, nextIndex));
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+            detectNext(modelId, images, results, nextIndex);
+        }
+    }
+
+    private CompletableFuture<List<ProductDetectResponseDto.ProductDto>> detectProducts(String modelId, PreparedImage image) {
+        return withTimeout(requestDetection(modelId, image));
+    }
+
+    /**
+     * Returns a caller's own copy of a shared detection request, which times out without affecting the request, so a
+     * cancelled or timed out caller neither cancels the request nor causes it to be sent again.
+     */
+    private CompletableFuture<List<ProductDetectResponseDto.ProductDto>> withTimeout(CompletableFuture<List<ProductDetectResponseDto.ProductDto>> request) {
+        return request.copy().orTimeout(detectTimeoutInMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the cached result of an image, or the Vision API request which detects it.
+     */
+    private CompletableFuture<List<ProductDetectResponseDto.ProductDto>> requestDetection(String modelId, PreparedImage image) {
+        // The generation is part of the key, so results of requests which were sent before a model or product
+        // change can't be cached after the change.
+
+        String cacheKey = image.getContentHash() + ":" + modelId + ":" + cacheGeneration.get();
+
+        List<ProductDetectResponseDto.ProductDto> cachedProducts = resultCache != null ? resultCache.get(cacheKey) : null;
+
+        if (cachedProducts != null) {
+            return CompletableFuture.completedFuture(cachedProducts);
+        }
+
+        // Identical images which are detected at the same time share one Vision API request, until it completes.
+
+        CompletableFuture<List<ProductDetectResponseDto.ProductDto>> inFlightDetection = inFlightDetections.computeIfAbsent(cacheKey, key -> {
+            return visionService.getVisionApi().modelDetectAsync(modelId, new ModelDetectRequest(), image.getImage(), visionApiExecutor)
+                    .thenApply(this::toProducts)
+                    .thenApply(products -> {
+                        List<ProductDetectResponseDto.ProductDto> result = Collections.unmodifiableList(products);
+
+                        if (resultCache != null) {
+                            resultCache.put(key, result);
+                        }
+
+                        return result;
+                    });
+        });
+
+        inFlightDetection.whenComplete((products, throwable) -> inFlightDetections.remove(cacheKey, inFlightDetection));
+
+        return inFlightDetection;
+    }
+
+    /**
+     * Clears the detection result cache after a product change has been committed.
+     *
+     * @param event The product changed event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductChanged(ProductChangedEvent event) {
+        clearResultCache();
+    }
+
+    /**
+     * Clears the detection result cache after the vision model has been trained.
+     *
+     * @param event The vision model changed event.
+     */
+    @EventListener
+    public void onVisionModelChanged(VisionModelChangedEvent event) {
+        clearResultCache();
+    }
+
+    private void clearResultCache() {
+        cacheGeneration.incrementAndGet();
+
+        if (resultCache != null) {
+            resultCache.clear();
+        }
+    }
+
+    private List<ProductDetectResponseDto.ProductDto> toProducts(ApiResponse<ModelDetectResponse> modelDetectResponse) {
+        List<ProductDetectResponseDto.ProductDto> products = new LinkedList<>();
+
+        if (modelDetectResponse.getData() == null
+            || modelDetectResponse.getData().getDetectedObjects() == null) {
+            return products;
+        }
+
+        List<ModelDetectResponseDetectedObjects> detectedObjects = modelDetectResponse.getData().getDetectedObjects();
+
+        Map<String, ProductCatalogEntry> catalogEntries = productCatalogService.findActiveProductsByVisionLabels(
+                detectedObjects.stream().map(ModelDetectResponseDetectedObjects::getLabel).collect(Collectors.toSet()));
+
+        for (ModelDetectResponseDetectedObjects detect : detectedObjects) {
+            ProductCatalogEntry product = catalogEntries.get(detect.getLabel());
+
+            if (product != null) {
+                products.add(Utils.touch(new ProductDetectResponseDto.ProductDto(), e -> {
+                    e.setId(product.getId());
+                    e.setName(product.getName());
+                    e.setNotes(product.getNotes());
+                    e.setProbability(BigDecimal.valueOf(detect.getProbability()));
+                    e.setMainImage(product.getMainImage());
+                    e.setMainImageUrl(product.getMainImageUrl());
+                }));
+            }
+        }
+
+        products.sort(Comparator.comparing(ProductDetectResponseDto.ProductDto::getProbability).reversed());
+
+        return products;
+    }
+
+}
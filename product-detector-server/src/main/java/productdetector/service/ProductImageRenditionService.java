@@ -0,0 +1,20 @@
+package productdetector.service;
+
+import javax.validation.constraints.NotNull;
+
+
+/**
+ * The ProductImageRenditionService interface defines methods to create the downscaled renditions of product main
+ * images.
+ */
+public interface ProductImageRenditionService {
+
+    /**
+     * Creates the renditions of the current main image of a product asynchronously. A ProductChangedEvent is
+     * published once they are stored.
+     *
+     * @param productId The product id.
+     */
+    void createRenditions(@NotNull Long productId);
+
+}
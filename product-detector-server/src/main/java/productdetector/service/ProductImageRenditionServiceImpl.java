@@ -0,0 +1,158 @@
+package productdetector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.transaction.event.TransactionalEventListener;
+import productdetector.event.ProductChangedEvent;
+import productdetector.event.ProductMainImageChangedEvent;
+import productdetector.model.ProductImageRendition;
+import productdetector.model.ProductMainImage;
+import productdetector.repository.ProductImageRenditionRepository;
+import productdetector.repository.ProductMainImageRepository;
+import productdetector.util.ImageUtils;
+import vision.client.VisionApiUtils;
+
+import java.awt.image.BufferedImage;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * This ProductImageRenditionServiceImpl service class implements the ProductImageRenditionService interface.
+ *
+ * Renditions are created on the product image executor after the main image has been committed, so neither the
+ * request which writes an image nor the requests which read it ever resize an image.
+ */
+@Service
+public class ProductImageRenditionServiceImpl implements ProductImageRenditionService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductImageRenditionServiceImpl.class);
+
+    private static final int MAX_SAVE_ATTEMPTS = 3;
+
+    @Autowired
+    private ProductMainImageRepository productMainImageRepository;
+
+    @Autowired
+    private ProductImageRenditionRepository productImageRenditionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * @see productdetector.service.ProductImageRenditionService#createRenditions(Long)
+     */
+    @Override
+    @Async("productImageExecutor")
+    public void createRenditions(Long productId) {
+        createRenditionsNow(productId);
+    }
+
+    /**
+     * Creates the renditions once a new main image has been committed.
+     *
+     * @param event The product main image changed event.
+     */
+    @Async("productImageExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onProductMainImageChanged(ProductMainImageChangedEvent event) {
+        createRenditionsNow(event.getProductId());
+    }
+
+    private void createRenditionsNow(Long productId) {
+        try {
+            ProductMainImage mainImage = productMainImageRepository.findById(productId).orElse(null);
+
+            if (mainImage == null || mainImage.getImageHash() == null) {
+                return;
+            }
+
+            // The image is decoded once at the largest rendition size (subsampled, but at least twice as large), and
+            // each rendition is scaled from the next larger one.
+
+            int maxPixels = ProductImageSize.SIZE_256.getPixels();
+
+            BufferedImage image = VisionApiUtils.decodeImage(mainImage.getImage(), maxPixels, maxPixels);
+
+            ProductImageSize[] sizes = ProductImageSize.values();
+
+            Map<ProductImageSize, byte[]> renditions = new EnumMap<>(ProductImageSize.class);
+
+            for (int i = sizes.length - 1; i >= 0; i--) {
+                if (!sizes[i].isRendition()) {
+                    continue;
+                }
+
+                image = ImageUtils.scaleToFit(image, sizes[i].getPixels());
+
+                renditions.put(sizes[i], ImageUtils.toJpeg(image));
+            }
+
+            if (!saveRenditions(productId, renditions, mainImage.getImageHash())) {
+                // The main image has been replaced meanwhile, the renditions of the new image are created by its own
+                // task.
+                return;
+            }
+
+            eventPublisher.publishEvent(new ProductChangedEvent(productId));
+
+            LOGGER.debug("Image renditions of product {} created.", productId);
+        } catch (Exception e) {
+            LOGGER.error("Can't create image renditions of product " + productId + ".", e);
+        }
+    }
+
+    /**
+     * Saves the renditions of a main image in one transaction, unless the main image has been replaced. The main
+     * image is locked while the renditions are saved, so a concurrent task for the same product waits. If a
+     * rendition was inserted concurrently anyway, e.g. with an isolation level which hides it, the transaction is
+     * repeated and updates it.
+     *
+     * @return Returns false if the main image has been replaced.
+     */
+    private boolean saveRenditions(Long productId, Map<ProductImageSize, byte[]> renditions, String imageHash) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    if (!imageHash.equals(productMainImageRepository.findAndLockImageHashByProductId(productId))) {
+                        return false;
+                    }
+
+                    for (Map.Entry<ProductImageSize, byte[]> entry : renditions.entrySet()) {
+                        saveRendition(productId, entry.getKey(), entry.getValue(), imageHash);
+                    }
+
+                    return true;
+                });
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_SAVE_ATTEMPTS) {
+                    throw e;
+                }
+
+                LOGGER.debug("Image renditions of product {} saved concurrently, retrying.", productId);
+            }
+        }
+    }
+
+    private void saveRendition(Long productId, ProductImageSize size, byte[] image, String imageHash) {
+        ProductImageRendition rendition = new ProductImageRendition();
+
+        rendition.setId(productImageRenditionRepository.findIdByProductIdAndImageSize(productId, size.getPixels()));
+        rendition.setProductId(productId);
+        rendition.setImageSize(size.getPixels());
+        rendition.setImage(image);
+        rendition.setImageHash(imageHash);
+
+        productImageRenditionRepository.saveAndFlush(rendition);
+    }
+
+}
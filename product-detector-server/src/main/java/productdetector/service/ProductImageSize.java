@@ -0,0 +1,71 @@
+package productdetector.service;
+
+
+/**
+ * The ProductImageSize enum defines the sizes in which a product main image can be requested. All sizes except the
+ * original are renditions which are created when the main image is written.
+ */
+public enum ProductImageSize {
+
+    SIZE_64("64", 64),
+
+    SIZE_128("128", 128),
+
+    /**
+     * The thumbnail, as shown with products.
+     */
+    SIZE_256("256", 256),
+
+    /**
+     * The stored main image.
+     */
+    ORIGINAL("original", 0);
+
+    private final String name;
+
+    private final int pixels;
+
+    ProductImageSize(String name, int pixels) {
+        this.name = name;
+        this.pixels = pixels;
+    }
+
+    /**
+     * Returns the name used in image URLs.
+     *
+     * @return Returns the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the maximum width and height of a rendition.
+     *
+     * @return Returns the size in pixels or 0 for the original.
+     */
+    public int getPixels() {
+        return pixels;
+    }
+
+    public boolean isRendition() {
+        return pixels > 0;
+    }
+
+    /**
+     * Returns the size with the given name.
+     *
+     * @param name The name used in image URLs.
+     * @return Returns the size or null if there is no size with the given name.
+     */
+    public static ProductImageSize fromName(String name) {
+        for (ProductImageSize size : values()) {
+            if (size.name.equals(name)) {
+                return size;
+            }
+        }
+
+        return null;
+    }
+
+}
@@ -5,6 +5,8 @@ import productdetector.model.ProductImage;
 
 import javax.validation.constraints.NotNull;
 import java.awt.image.BufferedImage;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
 
 
@@ -46,6 +48,63 @@ public interface ProductService {
      */
     Product updateProductMainImage(@NotNull Product product, @NotNull BufferedImage bufferedImage);
 
+    /**
+     * Gets the thumbnail of the main product image as JPEG data.
+     *
+     * @param product The Product entity.
+     * @return Returns the JPEG data or null if the product has no main image.
+     */
+    byte[] getProductThumbnail(@NotNull Product product);
+
+    /**
+     * Gets the thumbnails of the main images of several products as JPEG data with a single query.
+     *
+     * @param productIds The product ids.
+     * @return Returns the JPEG data by product id, products without a main image are missing.
+     */
+    Map<Long, byte[]> getProductThumbnails(@NotNull Collection<Long> productIds);
+
+    /**
+     * Gets the URL of the main product image. The URL contains the image version, so it changes whenever the image
+     * changes and can be cached indefinitely.
+     *
+     * @param product The Product entity.
+     * @return Returns the URL or null if the product has no main image.
+     */
+    String getProductImageUrl(@NotNull Product product);
+
+    /**
+     * Gets the URLs of the main images of several products with a single query.
+     *
+     * @param productIds The product ids.
+     * @return Returns the URLs by product id, products without a main image are missing.
+     */
+    Map<Long, String> getProductImageUrls(@NotNull Collection<Long> productIds);
+
+    /**
+     * Gets the content hash of the main product image without loading the image.
+     *
+     * @param productId The product id.
+     * @return Returns the hash or null if the product has no main image.
+     */
+    String getProductImageHash(@NotNull Long productId);
+
+    /**
+     * Gets the main product image in the given size as JPEG data.
+     *
+     * @param productId The product id.
+     * @param size The image size.
+     * @return Returns the JPEG data or null if the product has no main image.
+     */
+    byte[] getProductImage(@NotNull Long productId, @NotNull ProductImageSize size);
+
+    /**
+     * Deletes the given product entity and its product images.
+     *
+     * @param product The Product entity.
+     */
+    void deleteProduct(@NotNull Product product);
+
     /**
      * Recreates product data of the default vision model.
      * @throws Exception
@@ -6,17 +6,28 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import productdetector.event.ProductChangedEvent;
+import productdetector.event.ProductMainImageChangedEvent;
 import productdetector.model.Product;
 import productdetector.model.ProductImage;
+import productdetector.model.ProductMainImage;
+import productdetector.repository.ProductImageRenditionRepository;
 import productdetector.repository.ProductImageRepository;
+import productdetector.repository.ProductImageVersion;
+import productdetector.repository.ProductMainImageRepository;
 import productdetector.repository.ProductRepository;
+import productdetector.repository.ProductThumbnail;
+import productdetector.util.ImageUtils;
+import productdetector.util.Utils;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
@@ -38,9 +49,21 @@ public class ProductServiceImpl implements ProductService {
     @Autowired
     private ProductImageRepository productImageRepository;
 
+    @Autowired
+    private ProductMainImageRepository productMainImageRepository;
+
+    @Autowired
+    private ProductImageRenditionRepository productImageRenditionRepository;
+
+    @Autowired
+    private ProductImageRenditionService productImageRenditionService;
+
     @Autowired
     private VisionService visionService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
     @Value("${vision.demo.baseModelName}")
     private String visionDemoBaseModelName;
 
@@ -67,7 +90,11 @@ public class ProductServiceImpl implements ProductService {
         product.setActive(Boolean.TRUE);
         product.setVisionLabel(label);
 
-        return productRepository.save(product);
+        product = productRepository.save(product);
+
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+
+        return product;
     }
 
     /**
@@ -91,7 +118,11 @@ public class ProductServiceImpl implements ProductService {
             throw new RuntimeException("Product doesn't exist.");
         }
 
-        return productRepository.save(product);
+        product = productRepository.save(product);
+
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+
+        return product;
     }
 
     /**
@@ -101,20 +132,144 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     public Product updateProductMainImage(Product product, BufferedImage bufferedImage) {
         try {
-            ByteArrayOutputStream bos = new ByteArrayOutputStream();
+            ProductMainImage mainImage = new ProductMainImage();
 
-            ImageIO.write(bufferedImage, "jpg", bos );
+            mainImage.setProductId(product.getId());
+            mainImage.setImage(ImageUtils.toJpeg(bufferedImage));
+            mainImage.setImageType("jpg");
+            mainImage.setImageHash(Utils.sha256(mainImage.getImage()));
 
-            product.setMainImage(bos.toByteArray());
-            product.setMainImageType("jpg");
+            productMainImageRepository.save(mainImage);
         } catch (IOException e) {
             LOGGER.error(e.getMessage(), e);
             throw new RuntimeException("Can't process product image.", e);
         }
 
+        // The renditions are created after commit, until then the image endpoint serves the next larger image.
+
+        eventPublisher.publishEvent(new ProductMainImageChangedEvent(product.getId()));
+
         return updateProduct(product);
     }
 
+    /**
+     * @see productdetector.service.ProductService#getProductThumbnail(Product)
+     */
+    @Override
+    public byte[] getProductThumbnail(Product product) {
+        return productImageRenditionRepository.findCurrentImage(product.getId(), ProductImageSize.SIZE_256.getPixels());
+    }
+
+    /**
+     * @see productdetector.service.ProductService#getProductThumbnails(Collection)
+     */
+    @Override
+    public Map<Long, byte[]> getProductThumbnails(Collection<Long> productIds) {
+        Map<Long, byte[]> thumbnails = new HashMap<>();
+
+        if (!productIds.isEmpty()) {
+            for (ProductThumbnail thumbnail : productImageRenditionRepository.findCurrentImages(productIds, ProductImageSize.SIZE_256.getPixels())) {
+                if (thumbnail.getThumbnailImage() != null) {
+                    thumbnails.put(thumbnail.getProductId(), thumbnail.getThumbnailImage());
+                }
+            }
+        }
+
+        return thumbnails;
+    }
+
+    /**
+     * @see productdetector.service.ProductService#getProductImageUrl(Product)
+     */
+    @Override
+    public String getProductImageUrl(Product product) {
+        String imageHash = productMainImageRepository.findImageHashByProductId(product.getId());
+
+        return imageHash != null ? toProductImageUrl(product.getId(), imageHash) : null;
+    }
+
+    /**
+     * @see productdetector.service.ProductService#getProductImageUrls(Collection)
+     */
+    @Override
+    public Map<Long, String> getProductImageUrls(Collection<Long> productIds) {
+        Map<Long, String> imageUrls = new HashMap<>();
+
+        if (!productIds.isEmpty()) {
+            for (ProductImageVersion imageVersion : productMainImageRepository.findImageVersionsByProductIdIn(productIds)) {
+                if (imageVersion.getImageHash() != null) {
+                    imageUrls.put(imageVersion.getProductId(), toProductImageUrl(imageVersion.getProductId(), imageVersion.getImageHash()));
+                }
+            }
+        }
+
+        return imageUrls;
+    }
+
+    /**
+     * @see productdetector.service.ProductService#getProductImageHash(Long)
+     */
+    @Override
+    public String getProductImageHash(Long productId) {
+        return productMainImageRepository.findImageHashByProductId(productId);
+    }
+
+    /**
+     * @see productdetector.service.ProductService#getProductImage(Long, ProductImageSize)
+     */
+    @Override
+    public byte[] getProductImage(Long productId, ProductImageSize size) {
+        if (size.isRendition()) {
+            return productImageRenditionRepository.findCurrentImage(productId, size.getPixels());
+        }
+
+        return productMainImageRepository.findImageByProductId(productId);
+    }
+
+    /**
+     * Completes the main images stored before image hashes and renditions were introduced, or whose renditions
+     * couldn't be created, so the read paths can rely on them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void completeProductMainImages() {
+        for (Long productId : productMainImageRepository.findProductIdsWithoutImageHash()) {
+            try {
+                ProductMainImage mainImage = productMainImageRepository.findById(productId).orElseThrow();
+
+                mainImage.setImageHash(Utils.sha256(mainImage.getImage()));
+
+                productMainImageRepository.save(mainImage);
+            } catch (Exception e) {
+                LOGGER.error("Can't complete main image of product " + productId + ".", e);
+            }
+        }
+
+        long renditionCount = Arrays.stream(ProductImageSize.values()).filter(ProductImageSize::isRendition).count();
+
+        for (Long productId : productImageRenditionRepository.findProductIdsWithMissingRenditions(renditionCount)) {
+            productImageRenditionService.createRenditions(productId);
+        }
+    }
+
+    private static String toProductImageUrl(Long productId, String imageHash) {
+        return "/api/v1/product/" + productId + "/image?v=" + imageHash;
+    }
+
+    /**
+     * @see productdetector.service.ProductService#deleteProduct(Product)
+     */
+    @Override
+    @Transactional
+    public void deleteProduct(Product product) {
+        productImageRepository.deleteByProductId(product.getId());
+        productImageRepository.flush();
+        productImageRenditionRepository.deleteRenditionsByProductId(product.getId());
+        productMainImageRepository.deleteImageByProductId(product.getId());
+        productRepository.delete(product);
+
+        eventPublisher.publishEvent(new ProductChangedEvent(product.getId()));
+    }
+
     /**
      * @see productdetector.service.ProductService#recreateProductDataFromVisionModel()
      */
@@ -122,28 +277,32 @@ public class ProductServiceImpl implements ProductService {
     @Transactional
     public void recreateProductDataFromVisionModel() throws Exception {
         try {
-            ApiResponse<?> modelDeleteResponse = visionService.newVisionApi().modelDeleteWithHttpInfo(visionService.getVisionModelId());
+            ApiResponse<?> modelDeleteResponse = visionService.getVisionApi().modelDeleteWithHttpInfo(visionService.getVisionModelId());
         } catch (Exception e) {
             LOGGER.warn("Can't delete vision model.");
         }
 
         productImageRepository.deleteAll();
         productImageRepository.flush();
+        productImageRenditionRepository.deleteAllInBatch();
+        productMainImageRepository.deleteAllInBatch();
         productRepository.deleteAll();
         productRepository.flush();
 
+        eventPublisher.publishEvent(new ProductChangedEvent(null));
+
         ModelCreateRequest modelCreateRequest = new ModelCreateRequest();
 
         modelCreateRequest.setModelName(visionService.getVisionModelName());
         modelCreateRequest.setBaseModel(visionDemoBaseModelName);
 
-        ApiResponse<?> modelCreateResponse = visionService.newVisionApi().modelCreateWithHttpInfo(modelCreateRequest);
+        ApiResponse<?> modelCreateResponse = visionService.getVisionApi().modelCreateWithHttpInfo(modelCreateRequest);
 
         if (modelCreateResponse.getStatusCode() != 200) {
             throw new Exception("Can't create model.");
         }
 
-        ApiResponse<ModelDataGetAllResponse> modelDataGetAllResponse = visionService.newVisionApi().modelDataGetAllWithHttpInfo(visionService.getVisionModelId());
+        ApiResponse<ModelDataGetAllResponse> modelDataGetAllResponse = visionService.getVisionApi().modelDataGetAllWithHttpInfo(visionService.getVisionModelId());
 
         HashMap<String, List<String>> productData = new HashMap<>();
 
@@ -175,13 +334,13 @@ public class ProductServiceImpl implements ProductService {
             if (!productImages.isEmpty()) {
                 String visionDataId = productImages.get(0).getVisionDataId();
 
-                ApiResponse<ModelDataGetResponse> dataGetResponse = visionService.newVisionApi().modelDataGetWithHttpInfo(visionService.getVisionModelId(), visionDataId, "false");
+                ApiResponse<ModelDataGetResponse> dataGetResponse = visionService.getVisionApi().modelDataGetWithHttpInfo(visionService.getVisionModelId(), visionDataId, "false");
 
                 ByteArrayInputStream is = new ByteArrayInputStream(Base64.getDecoder().decode(dataGetResponse.getData().getImage().getData().getBytes(StandardCharsets.UTF_8)));
 
                 BufferedImage bufferedImage = ImageIO.read(is);
 
-                if (product.getMainImage() == null || product.getMainImage().length == 0) {
+                if (!productMainImageRepository.existsById(product.getId())) {
                     updateProductMainImage(product, bufferedImage);
                 }
             }
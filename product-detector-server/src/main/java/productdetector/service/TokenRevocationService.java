@@ -0,0 +1,28 @@
+package productdetector.service;
+
+import java.time.Instant;
+
+
+/**
+ * The TokenRevocationService interface defines methods to revoke issued tokens before they expire.
+ */
+public interface TokenRevocationService {
+
+    /**
+     * Revokes a token.
+     *
+     * @param tokenId The token id (jti).
+     * @param expiresAt The expiry time of the token, after which the revocation is dropped.
+     */
+    void revokeToken(String tokenId, Instant expiresAt);
+
+    /**
+     * Checks whether a token is revoked. The check is answered from memory for all tokens which aren't revoked, only
+     * (rare) Bloom filter hits are confirmed by the database.
+     *
+     * @param tokenId The token id (jti).
+     * @return Returns true if the token is revoked.
+     */
+    boolean isTokenRevoked(String tokenId);
+
+}
@@ -0,0 +1,195 @@
+package productdetector.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import productdetector.model.RevokedToken;
+import productdetector.repository.RevokedTokenRepository;
+import productdetector.util.BloomFilter;
+import productdetector.util.LruCache;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+
+
+/**
+ * This TokenRevocationServiceImpl service class implements the TokenRevocationService interface.
+ *
+ * Revoked token ids are stored in the database and added to an in-memory Bloom filter. The revocations of other
+ * server instances are added periodically. Since entries can't be removed from a Bloom filter, it's rebuilt from the
+ * database now and then, which drops expired revocations.
+ */
+@Service
+public class TokenRevocationServiceImpl implements TokenRevocationService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TokenRevocationServiceImpl.class);
+
+    private static final int REBUILD_PAGE_SIZE = 10000;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${server.tokenRevocation.expectedRevocations}")
+    private long expectedRevocations;
+
+    @Value("${server.tokenRevocation.falsePositiveProbability}")
+    private double falsePositiveProbability;
+
+    @Value("${server.tokenRevocation.refreshIntervalInMs}")
+    private long refreshIntervalInMs;
+
+    @Value("${server.tokenRevocation.rebuildIntervalInMs}")
+    private long rebuildIntervalInMs;
+
+    private volatile BloomFilter revokedTokenIds;
+
+    /**
+     * The Bloom filter which is being rebuilt, so revocations of this instance are added to it as well until it
+     * replaces the current one.
+     */
+    private volatile BloomFilter rebuiltRevokedTokenIds;
+
+    /**
+     * Confirmed revocations, so a revoked token which is sent again doesn't query the database each time.
+     */
+    private final LruCache<String, Boolean> confirmedRevocations = new LruCache<>(10000, 60000);
+
+    /**
+     * The times of the last refresh and rebuild, only accessed by the scheduler thread.
+     */
+    private Instant lastRefreshAt;
+
+    private Instant lastRebuildAt;
+
+    @PostConstruct
+    public void init() {
+        revokedTokenIds = new BloomFilter(expectedRevocations, falsePositiveProbability);
+    }
+
+    /**
+     * @see productdetector.service.TokenRevocationService#revokeToken(String, Instant)
+     */
+    @Override
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        RevokedToken revokedToken = new RevokedToken();
+
+        revokedToken.setTokenId(tokenId);
+        revokedToken.setExpiresAt(expiresAt);
+        revokedToken.setRevokedAt(Instant.now());
+
+        revokedTokenRepository.save(revokedToken);
+
+        // The revocation is stored before the filters are updated, so a rebuild which starts later reads it from the
+        // database. A rebuild which started earlier gets it through rebuiltRevokedTokenIds, and if the filters were
+        // swapped meanwhile, it's added to the current filter again.
+
+        BloomFilter filter;
+
+        do {
+            filter = revokedTokenIds;
+            filter.put(tokenId);
+
+            BloomFilter rebuiltFilter = rebuiltRevokedTokenIds;
+
+            if (rebuiltFilter != null) {
+                rebuiltFilter.put(tokenId);
+            }
+        } while (filter != revokedTokenIds);
+
+        confirmedRevocations.put(tokenId, true);
+    }
+
+    /**
+     * @see productdetector.service.TokenRevocationService#isTokenRevoked(String)
+     */
+    @Override
+    public boolean isTokenRevoked(String tokenId) {
+        if (tokenId == null || !revokedTokenIds.mightContain(tokenId)) {
+            return false;
+        }
+
+        Boolean revoked = confirmedRevocations.get(tokenId);
+
+        if (revoked == null) {
+            revoked = revokedTokenRepository.existsByTokenIdAndExpiresAtAfter(tokenId, Instant.now());
+            confirmedRevocations.put(tokenId, revoked);
+        }
+
+        return revoked;
+    }
+
+    /**
+     * Adds the revocations of other server instances to the Bloom filter. Every rebuildIntervalInMs, expired
+     * revocations are deleted and the filter is rebuilt instead, so it doesn't fill up with expired ids.
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${server.tokenRevocation.refreshIntervalInMs}")
+    public void refresh() {
+        try {
+            Instant now = Instant.now();
+
+            if (lastRebuildAt == null || !now.isBefore(lastRebuildAt.plusMillis(rebuildIntervalInMs))) {
+                rebuild(now);
+
+                lastRebuildAt = now;
+            } else {
+                // The revocations since the last refresh are read with an overlap of one interval, which covers
+                // revocations committed late and clock differences between the instances.
+
+                List<String> tokenIds = revokedTokenRepository.findTokenIdsByRevokedAtAfter(lastRefreshAt.minusMillis(refreshIntervalInMs), now);
+
+                tokenIds.forEach(revokedTokenIds::put);
+
+                LOGGER.debug("Token revocations refreshed ({} recent).", tokenIds.size());
+            }
+
+            lastRefreshAt = now;
+        } catch (Exception e) {
+            LOGGER.error("Can't refresh token revocations.", e);
+        }
+    }
+
+    private void rebuild(Instant now) {
+        int deleted = revokedTokenRepository.deleteExpired(now);
+
+        // The new filter is published for revocations of this instance before the database is read, so none of them
+        // gets lost when the filters are swapped.
+
+        BloomFilter newRevokedTokenIds = new BloomFilter(Math.max(expectedRevocations, revokedTokenRepository.count()), falsePositiveProbability);
+
+        rebuiltRevokedTokenIds = newRevokedTokenIds;
+
+        long active = 0;
+
+        try {
+            // The ids are read page by page (keyset pagination), so they are never held in memory all at once.
+
+            String afterTokenId = "";
+
+            while (true) {
+                List<String> tokenIds = revokedTokenRepository.findTokenIdsByExpiresAtAfter(now, afterTokenId, PageRequest.of(0, REBUILD_PAGE_SIZE));
+
+                tokenIds.forEach(newRevokedTokenIds::put);
+
+                active += tokenIds.size();
+
+                if (tokenIds.size() < REBUILD_PAGE_SIZE) {
+                    break;
+                }
+
+                afterTokenId = tokenIds.get(tokenIds.size() - 1);
+            }
+
+            revokedTokenIds = newRevokedTokenIds;
+        } finally {
+            rebuiltRevokedTokenIds = null;
+        }
+
+        LOGGER.debug("Token revocations rebuilt ({} active, {} expired).", active, deleted);
+    }
+
+}
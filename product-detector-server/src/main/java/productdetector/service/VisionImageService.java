@@ -0,0 +1,32 @@
+package productdetector.service;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+
+
+/**
+ * The VisionImageService interface defines methods to prepare uploaded images for the Vision API.
+ */
+public interface VisionImageService {
+
+    /**
+     * Prepares an uploaded image for the Vision API. JPEG data within the configured limits is forwarded as is,
+     * any other image is decoded and re-encoded as JPEG.
+     *
+     * @param imageData The image data.
+     * @return Returns a PreparedImage object.
+     * @throws IOException
+     */
+    PreparedImage prepareImage(@NotNull byte[] imageData) throws IOException;
+
+    /**
+     * Prepares an uploaded image for a detection. The image is scaled to the input size of the vision model as
+     * configured, so only the pixels the model looks at are encoded and transferred.
+     *
+     * @param imageData The image data.
+     * @return Returns a PreparedImage object.
+     * @throws IOException
+     */
+    PreparedImage prepareDetectImage(@NotNull byte[] imageData) throws IOException;
+
+}
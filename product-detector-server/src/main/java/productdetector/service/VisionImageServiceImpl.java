@@ -0,0 +1,112 @@
+package productdetector.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import productdetector.exception.BadRequestException;
+import productdetector.util.ImageUtils;
+import productdetector.util.Utils;
+import vision.client.StreamingImage;
+import vision.client.VisionApiUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+
+/**
+ * This VisionImageServiceImpl service class implements the VisionImageService interface.
+ */
+@Service
+public class VisionImageServiceImpl implements VisionImageService {
+
+    @Value("${vision.image.passThroughMaxBytes}")
+    private int passThroughMaxBytes;
+
+    @Value("${vision.image.passThroughMaxWidth}")
+    private int passThroughMaxWidth;
+
+    @Value("${vision.image.passThroughMaxHeight}")
+    private int passThroughMaxHeight;
+
+    @Value("${vision.image.detect.scaleMode}")
+    private ImageUtils.ScaleMode detectScaleMode;
+
+    @Value("${vision.image.detect.width}")
+    private int detectWidth;
+
+    @Value("${vision.image.detect.height}")
+    private int detectHeight;
+
+    @Value("${vision.image.detect.jpegQuality}")
+    private float detectJpegQuality;
+
+    /**
+     * @see productdetector.service.VisionImageService#prepareImage(byte[])
+     */
+    @Override
+    public PreparedImage prepareImage(byte[] imageData) throws IOException {
+        String contentHash = Utils.sha256(imageData);
+
+        Dimension jpegSize = VisionApiUtils.readJpegSize(imageData);
+
+        if (jpegSize != null
+            && imageData.length <= passThroughMaxBytes
+            && jpegSize.width <= passThroughMaxWidth
+            && jpegSize.height <= passThroughMaxHeight) {
+            // Already a JPEG the Vision API can handle, so forward the uploaded data untouched.
+
+            return new PreparedImage(jpegImage(imageData), jpegSize.width, jpegSize.height, contentHash);
+        }
+
+        BufferedImage bufferedImage = ImageUtils.fromBytes(imageData);
+
+        if (bufferedImage == null) {
+            throw new BadRequestException("Image format not supported.");
+        }
+
+        return new PreparedImage(
+                jpegImage(ImageUtils.toJpeg(bufferedImage)),
+                bufferedImage.getWidth(),
+                bufferedImage.getHeight(),
+                contentHash);
+    }
+
+    /**
+     * @see productdetector.service.VisionImageService#prepareDetectImage(byte[])
+     */
+    @Override
+    public PreparedImage prepareDetectImage(byte[] imageData) throws IOException {
+        if (detectScaleMode == ImageUtils.ScaleMode.NONE) {
+            return prepareImage(imageData);
+        }
+
+        String contentHash = Utils.sha256(imageData);
+
+        Dimension jpegSize = VisionApiUtils.readJpegSize(imageData);
+
+        if (jpegSize != null && jpegSize.width == detectWidth && jpegSize.height == detectHeight) {
+            // The client already sends images with the input size of the vision model.
+
+            return new PreparedImage(jpegImage(imageData), jpegSize.width, jpegSize.height, contentHash);
+        }
+
+        BufferedImage bufferedImage = VisionApiUtils.decodeImage(imageData, detectWidth, detectHeight);
+
+        if (bufferedImage == null) {
+            throw new BadRequestException("Image format not supported.");
+        }
+
+        BufferedImage scaledImage = ImageUtils.scaleTo(bufferedImage, detectWidth, detectHeight, detectScaleMode);
+
+        return new PreparedImage(
+                jpegImage(ImageUtils.toJpeg(scaledImage, detectJpegQuality)),
+                detectWidth,
+                detectHeight,
+                contentHash);
+    }
+
+    private StreamingImage jpegImage(byte[] jpeg) {
+        return StreamingImage.ofBytes(jpeg, "jpg");
+    }
+
+}
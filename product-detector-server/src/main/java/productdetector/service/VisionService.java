@@ -1,6 +1,10 @@
 package productdetector.service;
 
 import vision.client.VisionApiExtension;
+import vision.client.generated.vision.client.invoker.ApiResponse;
+import vision.client.generated.vision.client.model.ModelTrainResponse;
+
+import java.util.Collection;
 
 
 /**
@@ -9,11 +13,11 @@ import vision.client.VisionApiExtension;
 public interface VisionService {
 
     /**
-     * Creates a new VisionApiExtension object.
+     * Gets the shared VisionApiExtension object. The object is thread-safe and reuses its HTTP connections.
      *
      * @return Returns a VisionApiExtension object.
      */
-    VisionApiExtension newVisionApi();
+    VisionApiExtension getVisionApi();
 
     /**
      * Gets the default vision model id.
@@ -29,4 +33,14 @@ public interface VisionService {
      */
     String getVisionModelName();
 
-}
\ No newline at end of file
+    /**
+     * Trains the default vision model with the given vision labels. A VisionModelChangedEvent is published when the
+     * training is submitted and again after vision.train.modelChangedDelayInMs.
+     *
+     * @param visionLabels The vision labels.
+     * @return Returns the train response.
+     * @throws Exception
+     */
+    ApiResponse<ModelTrainResponse> trainVisionModel(Collection<String> visionLabels) throws Exception;
+
+}
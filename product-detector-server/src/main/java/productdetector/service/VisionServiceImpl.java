@@ -1,12 +1,23 @@
 package productdetector.service;
 
+import productdetector.event.VisionModelChangedEvent;
 import vision.client.VisionApiExtension;
-import vision.client.VisionApiFactory;
+import vision.client.generated.vision.client.invoker.ApiResponse;
+import vision.client.generated.vision.client.model.ModelTrainRequest;
+import vision.client.generated.vision.client.model.ModelTrainResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedList;
+
 
 /**
  * This VisionServiceImpl service class implements the VisionService interface.
@@ -16,32 +27,27 @@ public class VisionServiceImpl implements VisionService {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(VisionServiceImpl.class);
 
-    private static VisionApiExtension VISION_API = null;
-
-    @Value("${vision.api.url}")
-    private String visionApiUrl;
+    @Autowired
+    private VisionApiExtension visionApi;
 
-    @Value("${vision.api.authorization.user}")
-    private String visionApiAuthorizationUser;
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
 
-    @Value("${vision.api.authorization.password}")
-    private String visionApiAuthorizationPassword;
+    @Autowired
+    private TaskScheduler taskScheduler;
 
     @Value("${vision.modelName}")
     private String visionModelName;
 
+    @Value("${vision.train.modelChangedDelayInMs}")
+    private long modelChangedDelayInMs;
+
     /**
-     * @see productdetector.service.VisionService#newVisionApi()
+     * @see productdetector.service.VisionService#getVisionApi()
      */
     @Override
-    public VisionApiExtension newVisionApi() {
-        try {
-            return VisionApiFactory.newVisionApi(visionApiUrl, visionApiAuthorizationUser, visionApiAuthorizationPassword);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage(), e);
-        }
-
-        return null;
+    public VisionApiExtension getVisionApi() {
+        return visionApi;
     }
 
     /**
@@ -50,7 +56,7 @@ public class VisionServiceImpl implements VisionService {
     @Override
     public String getVisionModelId() {
         try {
-            return newVisionApi().getModelIdByModelName(visionModelName);
+            return visionApi.getModelIdByModelName(visionModelName);
         } catch (Exception e) {
             LOGGER.error(e.getMessage(), e);
         }
@@ -66,4 +72,29 @@ public class VisionServiceImpl implements VisionService {
         return visionModelName;
     }
 
-}
\ No newline at end of file
+    /**
+     * @see productdetector.service.VisionService#trainVisionModel(Collection)
+     */
+    @Override
+    public ApiResponse<ModelTrainResponse> trainVisionModel(Collection<String> visionLabels) throws Exception {
+        String modelId = getVisionModelId();
+
+        ModelTrainRequest modelTrainRequest = new ModelTrainRequest();
+
+        modelTrainRequest.setSettings(new LinkedList<>());
+        modelTrainRequest.setLabels(new ArrayList<>(visionLabels));
+
+        ApiResponse<ModelTrainResponse> modelTrainResponse = visionApi.modelTrainWithHttpInfo(modelId, modelTrainRequest);
+
+        // The vision server doesn't report when the trained model is live, so the model is treated as changed when
+        // the training is submitted and once more after a delay which covers a training.
+
+        applicationEventPublisher.publishEvent(new VisionModelChangedEvent(modelId));
+
+        taskScheduler.schedule(() -> applicationEventPublisher.publishEvent(new VisionModelChangedEvent(modelId)),
+                Instant.now().plusMillis(modelChangedDelayInMs));
+
+        return modelTrainResponse;
+    }
+
+}
@@ -0,0 +1,176 @@
+package productdetector.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Base64;
+
+public class ImageUtils {
+
+    /**
+     * The ScaleMode enum defines how an image is scaled to a fixed size.
+     */
+    public enum ScaleMode {
+
+        /**
+         * The image isn't scaled.
+         */
+        NONE,
+
+        /**
+         * The image is scaled to the size, ignoring its aspect ratio.
+         */
+        STRETCH,
+
+        /**
+         * The image is cropped to the aspect ratio of the size around its center and then scaled.
+         */
+        CENTER_CROP
+
+    }
+
+    public static final String JPEG_DATA_URI_PREFIX = "data:image/jpeg;base64,";
+
+    /**
+     * Scales an image down so that it fits into a square of the given size. Smaller images are only converted.
+     *
+     * @param image The image.
+     * @param maxSize The maximum width and height.
+     * @return Returns a RGB image which fits into the given size.
+     */
+    public static BufferedImage scaleToFit(BufferedImage image, int maxSize) {
+        double scale = Math.min(1.0, (double) maxSize / Math.max(image.getWidth(), image.getHeight()));
+
+        int width = Math.max(1, (int) Math.round(image.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * scale));
+
+        BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = scaledImage.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaledImage;
+    }
+
+    /**
+     * Scales an image to a fixed size.
+     *
+     * @param image The image.
+     * @param width The width.
+     * @param height The height.
+     * @param scaleMode The scale mode, must not be NONE.
+     * @return Returns a RGB image with the given size.
+     */
+    public static BufferedImage scaleTo(BufferedImage image, int width, int height, ScaleMode scaleMode) {
+        int sourceX = 0;
+        int sourceY = 0;
+        int sourceWidth = image.getWidth();
+        int sourceHeight = image.getHeight();
+
+        if (scaleMode == ScaleMode.CENTER_CROP) {
+            if ((long) sourceWidth * height > (long) sourceHeight * width) {
+                sourceWidth = Math.max(1, (int) Math.round((double) sourceHeight * width / height));
+                sourceX = (image.getWidth() - sourceWidth) / 2;
+            } else {
+                sourceHeight = Math.max(1, (int) Math.round((double) sourceWidth * height / width));
+                sourceY = (image.getHeight() - sourceHeight) / 2;
+            }
+        }
+
+        BufferedImage scaledImage = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+
+        Graphics2D graphics = scaledImage.createGraphics();
+
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image,
+                    0, 0, width, height,
+                    sourceX, sourceY, sourceX + sourceWidth, sourceY + sourceHeight,
+                    null);
+        } finally {
+            graphics.dispose();
+        }
+
+        return scaledImage;
+    }
+
+    /**
+     * Encodes an image as JPEG with the given quality.
+     *
+     * @param image The image.
+     * @param quality The compression quality between 0 and 1.
+     * @return Returns the JPEG data.
+     * @throws IOException
+     */
+    public static byte[] toJpeg(BufferedImage image, float quality) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpg").next();
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(bos)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality);
+
+            writer.setOutput(ios);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * Encodes an image as JPEG.
+     *
+     * @param image The image.
+     * @return Returns the JPEG data.
+     * @throws IOException
+     */
+    public static byte[] toJpeg(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+
+        ImageIO.write(image, "jpg", bos);
+
+        return bos.toByteArray();
+    }
+
+    /**
+     * Decodes image data.
+     *
+     * @param data The image data.
+     * @return Returns the decoded image.
+     * @throws IOException
+     */
+    public static BufferedImage fromBytes(byte[] data) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Creates a data URI for JPEG data.
+     *
+     * @param jpeg The JPEG data.
+     * @return Returns the data URI.
+     */
+    public static String toJpegDataUri(byte[] jpeg) {
+        return JPEG_DATA_URI_PREFIX + Base64.getEncoder().encodeToString(jpeg);
+    }
+
+}
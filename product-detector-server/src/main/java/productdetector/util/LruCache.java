@@ -0,0 +1,103 @@
+package productdetector.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The LruCache class is a small thread-safe cache with a maximum number of entries and a time to live. If the cache
+ * is full, the least recently used entry is evicted.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+public class LruCache<K, V> {
+
+    private static final class Entry<V> {
+
+        private final V value;
+
+        private final long expiresAt;
+
+        private Entry(V value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    private final long ttlInMs;
+
+    private final Map<K, Entry<V>> entries;
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of entries.
+     * @param ttlInMs The time to live of an entry in milliseconds.
+     */
+    public LruCache(int maxEntries, long ttlInMs) {
+        this.ttlInMs = ttlInMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Gets a cached value.
+     *
+     * @param key The key.
+     * @return Returns the cached value or null if there is no valid entry for the key.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+
+        if (entry == null) {
+            return null;
+        }
+
+        if (entry.expiresAt <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+
+        return entry.value;
+    }
+
+    /**
+     * Adds or replaces a cached value.
+     *
+     * @param key The key.
+     * @param value The value.
+     */
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttlInMs));
+    }
+
+    /**
+     * Adds or replaces a cached value which expires at the given time or after the time to live, whichever is
+     * earlier.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @param expiresAt The expiry time in milliseconds since the epoch.
+     */
+    public synchronized void put(K key, V value, long expiresAt) {
+        entries.put(key, new Entry<>(value, Math.min(expiresAt, System.currentTimeMillis() + ttlInMs)));
+    }
+
+    /**
+     * Removes all cached values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+}
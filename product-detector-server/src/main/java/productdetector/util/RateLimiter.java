@@ -0,0 +1,129 @@
+package productdetector.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+
+/**
+ * The RateLimiter class implements lock-free token buckets per key.
+ *
+ * A bucket is stored as a single timestamp, the time at which the bucket would be full again (generic cell rate
+ * algorithm). Taking a token is a single compare-and-set on that timestamp, so concurrent requests never block each
+ * other, and requests for different keys don't even share a value.
+ */
+public class RateLimiter {
+
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongSupplier nanoTime;
+
+    public RateLimiter() {
+        this(System::nanoTime);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param nanoTime The clock in nanoseconds, e.g. a fake clock in tests.
+     */
+    RateLimiter(LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Takes one token from the bucket of a key.
+     *
+     * @param key The bucket key.
+     * @param tokensPerSecond The rate at which the bucket is refilled.
+     * @param burst The bucket size, i.e. the number of requests allowed at once.
+     * @return Returns 0 if a token was taken, otherwise the time in nanoseconds until a token is available.
+     */
+    public long tryAcquire(String key, double tokensPerSecond, int burst) {
+        long interval = (long) (1_000_000_000L / tokensPerSecond);
+        long tolerance = interval * (Math.max(1, burst) - 1);
+
+        AtomicLong bucket = buckets.get(key);
+
+        if (bucket == null) {
+            bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+        }
+
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long fullAt = bucket.get();
+
+            long start = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+
+            long wait = start - now - tolerance;
+
+            if (wait > 0) {
+                return wait;
+            }
+
+            if (bucket.compareAndSet(fullAt, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Takes tokens from the bucket of a key without checking whether they are available. The bucket goes into debt
+     * for missing tokens, so the following tryAcquire calls wait until the debt is refilled.
+     *
+     * @param key The bucket key.
+     * @param tokensPerSecond The rate at which the bucket is refilled.
+     * @param tokens The number of tokens.
+     */
+    public void charge(String key, double tokensPerSecond, int tokens) {
+        long interval = (long) (1_000_000_000L / tokensPerSecond);
+
+        AtomicLong bucket = buckets.computeIfAbsent(key, k -> new AtomicLong(Long.MIN_VALUE));
+
+        while (true) {
+            long now = nanoTime.getAsLong();
+            long fullAt = bucket.get();
+
+            long start = fullAt == Long.MIN_VALUE || fullAt - now < 0 ? now : fullAt;
+
+            if (bucket.compareAndSet(fullAt, start + interval * tokens)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Removes the buckets which are full again, they are recreated on the next request.
+     *
+     * A request racing with the removal may use a bucket which has just been removed, in which case its token isn't
+     * counted. This is accepted, it only ever lets a single request more through.
+     */
+    public void evictIdle() {
+        long now = nanoTime.getAsLong();
+
+        buckets.values().removeIf(bucket -> bucket.get() == Long.MIN_VALUE || bucket.get() - now <= 0);
+    }
+
+    /**
+     * Converts a wait time into whole seconds for a Retry-After header, rounded up so a client which waits that long
+     * gets a token.
+     *
+     * @param waitInNs The wait time in nanoseconds as returned by tryAcquire.
+     * @return Returns the wait time in seconds, at least 1.
+     */
+    public static long toRetryAfterInS(long waitInNs) {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitInNs + 999_999_999L));
+    }
+
+    /**
+     * Returns the number of buckets.
+     *
+     * @return Returns the number of buckets.
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+}
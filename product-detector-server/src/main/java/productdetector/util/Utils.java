@@ -1,11 +1,39 @@
 package productdetector.util;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.function.Consumer;
 
 public class Utils {
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     public static <T> T touch(T object, Consumer<T> consumer) {
         consumer.accept(object);
         return object;
     }
+
+    public static String sha256(String value) {
+        return sha256(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static String sha256(byte[] value) {
+        byte[] digest;
+
+        try {
+            digest = MessageDigest.getInstance("SHA-256").digest(value);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        char[] hex = new char[digest.length * 2];
+
+        for (int i = 0; i < digest.length; i++) {
+            hex[i * 2] = HEX_DIGITS[(digest[i] >> 4) & 0xf];
+            hex[i * 2 + 1] = HEX_DIGITS[digest[i] & 0xf];
+        }
+
+        return new String(hex);
+    }
 }
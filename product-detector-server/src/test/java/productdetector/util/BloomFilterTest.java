@@ -0,0 +1,61 @@
+package productdetector.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class BloomFilterTest {
+
+	private static final int INSERTIONS = 10000;
+
+	private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+	private BloomFilter createFilledFilter() {
+		BloomFilter bloomFilter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			bloomFilter.put("token-" + i);
+		}
+
+		return bloomFilter;
+	}
+
+	@Test
+	public void testNoFalseNegatives() {
+		BloomFilter bloomFilter = createFilledFilter();
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertTrue(bloomFilter.mightContain("token-" + i));
+		}
+	}
+
+	@Test
+	public void testEmptyFilterContainsNothing() {
+		BloomFilter bloomFilter = new BloomFilter(INSERTIONS, FALSE_POSITIVE_PROBABILITY);
+
+		for (int i = 0; i < INSERTIONS; i++) {
+			assertFalse(bloomFilter.mightContain("token-" + i));
+		}
+	}
+
+	@Test
+	public void testFalsePositiveProbability() {
+		BloomFilter bloomFilter = createFilledFilter();
+
+		int probes = 100000;
+		int falsePositives = 0;
+
+		for (int i = 0; i < probes; i++) {
+			if (bloomFilter.mightContain("other-token-" + i)) {
+				falsePositives++;
+			}
+		}
+
+		double falsePositiveRate = (double) falsePositives / probes;
+
+		assertTrue("False positive rate " + falsePositiveRate + " is too high.", falsePositiveRate < FALSE_POSITIVE_PROBABILITY * 1.5);
+		assertTrue("False positive rate " + falsePositiveRate + " is too low.", falsePositiveRate > FALSE_POSITIVE_PROBABILITY * 0.5);
+	}
+
+}
@@ -0,0 +1,120 @@
+package productdetector.util;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+
+public class RateLimiterTest {
+
+	private static final long SECOND_IN_NS = TimeUnit.SECONDS.toNanos(1);
+
+	private AtomicLong now;
+
+	private RateLimiter rateLimiter;
+
+	@Before
+	public void setUp() {
+		now = new AtomicLong(123_456_789L);
+		rateLimiter = new RateLimiter(now::get);
+	}
+
+	@Test
+	public void testBurst() {
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, rateLimiter.tryAcquire("user:1", 5, 10));
+		}
+
+		assertEquals(SECOND_IN_NS / 5, rateLimiter.tryAcquire("user:1", 5, 10));
+	}
+
+	@Test
+	public void testBucketsAreIndependent() {
+		assertEquals(0, rateLimiter.tryAcquire("user:1", 1, 1));
+		assertEquals(SECOND_IN_NS, rateLimiter.tryAcquire("user:1", 1, 1));
+
+		assertEquals(0, rateLimiter.tryAcquire("user:2", 1, 1));
+	}
+
+	@Test
+	public void testRefill() {
+		for (int i = 0; i < 10; i++) {
+			rateLimiter.tryAcquire("user:1", 5, 10);
+		}
+
+		now.addAndGet(SECOND_IN_NS / 5 - 1);
+
+		assertEquals(1, rateLimiter.tryAcquire("user:1", 5, 10));
+
+		now.addAndGet(1);
+
+		assertEquals(0, rateLimiter.tryAcquire("user:1", 5, 10));
+		assertEquals(SECOND_IN_NS / 5, rateLimiter.tryAcquire("user:1", 5, 10));
+
+		// An idle bucket refills up to the burst, not beyond.
+
+		now.addAndGet(60 * SECOND_IN_NS);
+
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, rateLimiter.tryAcquire("user:1", 5, 10));
+		}
+
+		assertEquals(SECOND_IN_NS / 5, rateLimiter.tryAcquire("user:1", 5, 10));
+	}
+
+	@Test
+	public void testRetryAfter() {
+		assertEquals(0, rateLimiter.tryAcquire("user:1", 0.25, 1));
+
+		long waitInNs = rateLimiter.tryAcquire("user:1", 0.25, 1);
+
+		assertEquals(4 * SECOND_IN_NS, waitInNs);
+		assertEquals(4, RateLimiter.toRetryAfterInS(waitInNs));
+
+		now.addAndGet(2 * SECOND_IN_NS + 1);
+
+		waitInNs = rateLimiter.tryAcquire("user:1", 0.25, 1);
+
+		assertEquals(2 * SECOND_IN_NS - 1, waitInNs);
+		assertEquals(2, RateLimiter.toRetryAfterInS(waitInNs));
+
+		assertEquals(1, RateLimiter.toRetryAfterInS(1));
+	}
+
+	@Test
+	public void testCharge() {
+		assertEquals(0, rateLimiter.tryAcquire("user:1", 5, 10));
+
+		// A batch larger than the burst puts the bucket into debt.
+
+		rateLimiter.charge("user:1", 5, 15);
+
+		assertEquals(SECOND_IN_NS * 7 / 5, rateLimiter.tryAcquire("user:1", 5, 10));
+
+		now.addAndGet(SECOND_IN_NS * 7 / 5);
+
+		assertEquals(0, rateLimiter.tryAcquire("user:1", 5, 10));
+	}
+
+	@Test
+	public void testEvictIdle() {
+		rateLimiter.tryAcquire("user:1", 1, 1);
+		rateLimiter.tryAcquire("user:2", 1, 1);
+
+		now.addAndGet(SECOND_IN_NS / 2);
+
+		rateLimiter.evictIdle();
+
+		assertEquals(2, rateLimiter.size());
+
+		now.addAndGet(SECOND_IN_NS / 2);
+
+		rateLimiter.evictIdle();
+
+		assertEquals(0, rateLimiter.size());
+	}
+
+}
@@ -0,0 +1,104 @@
+package vision.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Base64;
+
+
+/**
+ * The Base64EncodingInputStream class reads a stream and returns its base64 encoded form. Only one block of data is
+ * buffered at a time.
+ */
+class Base64EncodingInputStream extends InputStream {
+
+    /**
+     * The number of source bytes encoded at once, a multiple of 3 so that only the last block is padded.
+     */
+    private static final int BLOCK_SIZE = 3 * 1024;
+
+    private final InputStream source;
+
+    private final byte[] sourceBuffer = new byte[BLOCK_SIZE];
+
+    private final byte[] encodedBuffer = new byte[BLOCK_SIZE / 3 * 4];
+
+    private int encodedPosition;
+
+    private int encodedLength;
+
+    private boolean endOfSource;
+
+    Base64EncodingInputStream(InputStream source) {
+        this.source = source;
+    }
+
+    /**
+     * Calculates the length of the base64 encoded form of data.
+     *
+     * @param length The length of the data.
+     * @return Returns the length of the encoded data.
+     */
+    static long encodedLength(long length) {
+        return (length + 2) / 3 * 4;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+
+        return encodedBuffer[encodedPosition++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+
+        if (!fill()) {
+            return -1;
+        }
+
+        int count = Math.min(len, encodedLength - encodedPosition);
+
+        System.arraycopy(encodedBuffer, encodedPosition, b, off, count);
+
+        encodedPosition += count;
+
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private boolean fill() throws IOException {
+        if (encodedPosition < encodedLength) {
+            return true;
+        }
+
+        if (endOfSource) {
+            return false;
+        }
+
+        int length = source.readNBytes(sourceBuffer, 0, BLOCK_SIZE);
+
+        if (length < BLOCK_SIZE) {
+            endOfSource = true;
+        }
+
+        if (length == 0) {
+            return false;
+        }
+
+        encodedLength = Base64.getEncoder().encode(length == BLOCK_SIZE ? sourceBuffer : Arrays.copyOf(sourceBuffer, length), encodedBuffer);
+        encodedPosition = 0;
+
+        return true;
+    }
+
+}
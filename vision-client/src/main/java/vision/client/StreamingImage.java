@@ -0,0 +1,83 @@
+package vision.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Supplier;
+
+
+/**
+ * The StreamingImage class describes image data which is base64 encoded on the fly while a request is sent, so the
+ * encoded image is never held in memory.
+ */
+public class StreamingImage {
+
+    private final String format;
+
+    private final long length;
+
+    private final Supplier<InputStream> data;
+
+    /**
+     * Constructor.
+     *
+     * @param format The image data format, e.g. "jpg".
+     * @param length The length of the image data in bytes.
+     * @param data A supplier which opens a new stream of the image data for every (re-)sent request.
+     */
+    public StreamingImage(String format, long length, Supplier<InputStream> data) {
+        this.format = format;
+        this.length = length;
+        this.data = data;
+    }
+
+    /**
+     * Creates a StreamingImage object for image data in memory.
+     *
+     * @param data The image data.
+     * @param format The image data format.
+     * @return Returns a StreamingImage object.
+     */
+    public static StreamingImage ofBytes(byte[] data, String format) {
+        return new StreamingImage(format, data.length, () -> new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Creates a StreamingImage object for an image file.
+     *
+     * @param path The image file path.
+     * @param format The image data format.
+     * @return Returns a StreamingImage object or throws an exception.
+     * @throws IOException
+     */
+    public static StreamingImage ofFile(Path path, String format) throws IOException {
+        return new StreamingImage(format, Files.size(path), () -> {
+            try {
+                return Files.newInputStream(path);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Opens a new stream of the image data.
+     *
+     * @return Returns an InputStream object.
+     */
+    public InputStream openStream() {
+        return data.get();
+    }
+
+}
@@ -0,0 +1,25 @@
+package vision.client;
+
+import vision.client.generated.vision.client.invoker.ApiClient;
+
+import java.net.http.HttpClient;
+
+
+/**
+ * The VisionApiClient class extends the auto-generated ApiClient so that all users of one ApiClient object share a
+ * single HttpClient object, including its connection pool, instead of building a new one per user.
+ */
+class VisionApiClient extends ApiClient {
+
+    private HttpClient httpClient;
+
+    @Override
+    public synchronized HttpClient getHttpClient() {
+        if (httpClient == null) {
+            httpClient = super.getHttpClient();
+        }
+
+        return httpClient;
+    }
+
+}
@@ -2,18 +2,61 @@ package vision.client;
 
 import vision.client.generated.vision.client.api.VisionApi;
 import vision.client.generated.vision.client.invoker.ApiClient;
+import vision.client.generated.vision.client.invoker.ApiException;
 import vision.client.generated.vision.client.invoker.ApiResponse;
-import vision.client.generated.vision.client.model.ModelGetAllResponse;
-import vision.client.generated.vision.client.model.ModelGetAllResponseModels;
+import vision.client.generated.vision.client.model.*;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.text.MessageFormat;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 /**
  * The VisionApiExtension extends the auto-generated VisionApi and adds further functionality.
  */
-public class VisionApiExtension extends VisionApi {
+public class VisionApiExtension extends VisionApi implements AutoCloseable {
+
+    /**
+     * The ApiCall interface wraps a call of the auto-generated VisionApi.
+     */
+    @FunctionalInterface
+    private interface ApiCall<T> {
+
+        T call() throws ApiException;
+
+    }
+
+    private final VisionModelIdCache modelIdCache;
+
+    private final HttpClient httpClient;
+
+    private final ObjectMapper objectMapper;
+
+    private final String baseUri;
+
+    private final Consumer<HttpRequest.Builder> requestInterceptor;
+
+    private final Duration readTimeout;
 
     /**
      * Constructor.
@@ -21,34 +64,503 @@ public class VisionApiExtension extends VisionApi {
      * @param apiClient An ApiClient object.
      */
     VisionApiExtension(ApiClient apiClient) {
+        this(apiClient, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param apiClient An ApiClient object.
+     * @param modelIdCacheTtl The time to live of cached vision model ids or null to disable the cache.
+     */
+    VisionApiExtension(ApiClient apiClient, Duration modelIdCacheTtl) {
         super(apiClient);
+
+        httpClient = apiClient.getHttpClient();
+        objectMapper = apiClient.getObjectMapper();
+        baseUri = apiClient.getBaseUri();
+        requestInterceptor = apiClient.getRequestInterceptor();
+        readTimeout = apiClient.getReadTimeout();
+
+        if (modelIdCacheTtl != null && !modelIdCacheTtl.isZero() && !modelIdCacheTtl.isNegative()) {
+            modelIdCache = new VisionModelIdCache(this::getModelIds, modelIdCacheTtl);
+        } else {
+            modelIdCache = null;
+        }
     }
 
     /**
-     * Queries the Vision API to retrieve the vision model id for a vision model.
+     * Resolves the vision model id for a vision model. If the model id cache is enabled, the id is served from the
+     * cache and the Vision API is only queried for unknown or expired model names.
      *
      * @param modelName The vision model name.
      * @return Returns the vision model id or throws an exception.
      * @throws Exception
      */
     public String getModelIdByModelName(String modelName) throws Exception {
+        if (modelIdCache != null) {
+            return modelIdCache.get(modelName);
+        }
+
+        String modelId = getModelIds().get(modelName);
+
+        if (modelId == null) {
+            throw new Exception(MessageFormat.format("Can''t find model ''{0}''.", modelName));
+        }
+
+        return modelId;
+    }
+
+    /**
+     * Queries the Vision API to retrieve the vision model ids of all vision models.
+     *
+     * @return Returns a map of vision model names to vision model ids or throws an exception.
+     * @throws Exception
+     */
+    public Map<String, String> getModelIds() throws Exception {
         ApiResponse<ModelGetAllResponse> modelGetAllResponse = modelGetAllWithHttpInfo();
 
         if (modelGetAllResponse.getStatusCode() != 200) {
             throw new Exception("Model identification failed (HTTP status != 200).");
-        } else if (modelGetAllResponse == null || modelGetAllResponse.getData().getModels() == null) {
-            throw new Exception(MessageFormat.format("Can't find model ''{0}''.", modelName));
         }
 
-        Optional<ModelGetAllResponseModels> modelGetAllResponseModelsOptional = modelGetAllResponse.getData().getModels().stream()
-                .filter(e -> modelName.equals(e.getModelName()))
-                .findAny();
+        Map<String, String> modelIds = new HashMap<>();
+
+        if (modelGetAllResponse.getData() != null && modelGetAllResponse.getData().getModels() != null) {
+            for (ModelGetAllResponseModels model : modelGetAllResponse.getData().getModels()) {
+                modelIds.putIfAbsent(model.getModelName(), model.getModelId());
+            }
+        }
+
+        return modelIds;
+    }
+
+    /**
+     * Sends a detect request without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param body The detect request.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDetectResponse>> modelDetectAsync(String modelId, ModelDetectRequest body) {
+        return modelDetectAsync(modelId, body, null);
+    }
+
+    /**
+     * Sends a detect request without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param body The detect request.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDetectResponse>> modelDetectAsync(String modelId, ModelDetectRequest body, Executor executor) {
+        if (modelId == null || body == null) {
+            return missingParameter("modelDetect");
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("POST", modelPath(modelId, "/detect"), body, ModelDetectResponse.class, "modelDetect", executor));
+    }
+
+    /**
+     * Sends a detect request without blocking the calling thread. The image is base64 encoded while the request is
+     * sent, so neither the encoded image nor the JSON body is held in memory.
+     *
+     * @param modelId The model ID.
+     * @param body The detect request, its image is ignored.
+     * @param image The image to detect objects on.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDetectResponse>> modelDetectAsync(String modelId, ModelDetectRequest body, StreamingImage image, Executor executor) {
+        if (modelId == null || body == null || image == null) {
+            return missingParameter("modelDetect");
+        }
+
+        HttpRequest.BodyPublisher bodyPublisher;
+
+        try {
+            bodyPublisher = streamingImageJsonPublisher(placeholderImage -> new ModelDetectRequest()
+                    .image(placeholderImage)
+                    .settings(body.getSettings()), image);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new ApiException(e));
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("POST", modelPath(modelId, "/detect"), bodyPublisher, ModelDetectResponse.class, "modelDetect", executor));
+    }
+
+    /**
+     * Adds example data to a model without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param body The data create request.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDataCreateResponse>> modelDataCreateAsync(String modelId, ModelDataCreateRequest body, Executor executor) {
+        if (modelId == null || body == null) {
+            return missingParameter("modelDataCreate");
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("POST", modelPath(modelId, "/data"), body, ModelDataCreateResponse.class, "modelDataCreate", executor));
+    }
+
+    /**
+     * Adds example data to a model without blocking the calling thread. The image is base64 encoded while the
+     * request is sent, so neither the encoded image nor the JSON body is held in memory.
+     *
+     * @param modelId The model ID.
+     * @param body The data create request, its image is ignored.
+     * @param image The example image.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDataCreateResponse>> modelDataCreateAsync(String modelId, ModelDataCreateRequest body, StreamingImage image, Executor executor) {
+        if (modelId == null || body == null || image == null) {
+            return missingParameter("modelDataCreate");
+        }
+
+        HttpRequest.BodyPublisher bodyPublisher;
+
+        try {
+            bodyPublisher = streamingImageJsonPublisher(placeholderImage -> new ModelDataCreateRequest()
+                    .image(placeholderImage)
+                    .objects(body.getObjects()), image);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(new ApiException(e));
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("POST", modelPath(modelId, "/data"), bodyPublisher, ModelDataCreateResponse.class, "modelDataCreate", executor));
+    }
+
+    /**
+     * Gets example data of a model without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param dataId The data ID.
+     * @param downloadFile The optional download file flag.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDataGetResponse>> modelDataGetAsync(String modelId, String dataId, String downloadFile, Executor executor) {
+        if (modelId == null || dataId == null) {
+            return missingParameter("modelDataGet");
+        }
+
+        String path = modelPath(modelId, "/data/" + ApiClient.urlEncode(dataId));
+
+        if (downloadFile != null) {
+            path += "?downloadFile=" + ApiClient.urlEncode(downloadFile);
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("GET", path, null, ModelDataGetResponse.class, "modelDataGet", executor));
+    }
+
+    /**
+     * Gets all example data of a model without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelDataGetAllResponse>> modelDataGetAllAsync(String modelId, Executor executor) {
+        if (modelId == null) {
+            return missingParameter("modelDataGetAll");
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("GET", modelPath(modelId, "/data"), null, ModelDataGetAllResponse.class, "modelDataGetAll", executor));
+    }
+
+    /**
+     * Starts the training of a model without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param body The train request.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelTrainResponse>> modelTrainAsync(String modelId, ModelTrainRequest body, Executor executor) {
+        if (modelId == null || body == null) {
+            return missingParameter("modelTrain");
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("POST", modelPath(modelId, "/train"), body, ModelTrainResponse.class, "modelTrain", executor));
+    }
 
-        if (modelGetAllResponseModelsOptional.isEmpty()) {
-            throw new Exception(MessageFormat.format("Can't find model ''{0}''.", modelName));
+    /**
+     * Gets the status of a model training without blocking the calling thread.
+     *
+     * @param modelId The model ID.
+     * @param trainId The train ID.
+     * @param executor The executor which deserializes the response or null to use the HTTP client executor.
+     * @return Returns a CompletableFuture which completes with the response or exceptionally with an ApiException.
+     */
+    public CompletableFuture<ApiResponse<ModelTrainGetResponse>> modelTrainGetStatusAsync(String modelId, String trainId, Executor executor) {
+        if (modelId == null || trainId == null) {
+            return missingParameter("modelTrainGetStatus");
+        }
+
+        return invalidateOnNotFoundAsync(modelId,
+                sendAsync("GET", modelPath(modelId, "/train/" + ApiClient.urlEncode(trainId)), null, ModelTrainGetResponse.class, "modelTrainGetStatus", executor));
+    }
+
+    /**
+     * Removes all cached vision model ids.
+     */
+    public void invalidateModelIds() {
+        if (modelIdCache != null) {
+            modelIdCache.invalidateAll();
         }
+    }
+
+    /**
+     * Stops background tasks of this object.
+     */
+    @Override
+    public void close() {
+        if (modelIdCache != null) {
+            modelIdCache.close();
+        }
+    }
+
+    @Override
+    public ApiResponse<ModelCreateResponse> modelCreateWithHttpInfo(ModelCreateRequest body) throws ApiException {
+        try {
+            return super.modelCreateWithHttpInfo(body);
+        } finally {
+            if (modelIdCache != null && body != null) {
+                modelIdCache.invalidate(body.getModelName());
+            }
+        }
+    }
+
+    @Override
+    public ApiResponse<ModelApiResponse> modelDeleteWithHttpInfo(String modelId) throws ApiException {
+        try {
+            return super.modelDeleteWithHttpInfo(modelId);
+        } finally {
+            if (modelIdCache != null) {
+                modelIdCache.invalidateModelId(modelId);
+            }
+        }
+    }
+
+    @Override
+    public ApiResponse<ModelGetResponse> modelGetWithHttpInfo(String modelId) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelGetWithHttpInfo(modelId));
+    }
+
+    @Override
+    public ApiResponse<ModelDetectResponse> modelDetectWithHttpInfo(String modelId, ModelDetectRequest body) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelDetectWithHttpInfo(modelId, body));
+    }
+
+    @Override
+    public ApiResponse<ModelDataCreateResponse> modelDataCreateWithHttpInfo(String modelId, ModelDataCreateRequest modelDataCreateRequest) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelDataCreateWithHttpInfo(modelId, modelDataCreateRequest));
+    }
+
+    @Override
+    public ApiResponse<Void> modelDataDeleteWithHttpInfo(String modelId, String dataId) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelDataDeleteWithHttpInfo(modelId, dataId));
+    }
+
+    @Override
+    public ApiResponse<ModelDataGetResponse> modelDataGetWithHttpInfo(String modelId, String dataId, String downloadFile) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelDataGetWithHttpInfo(modelId, dataId, downloadFile));
+    }
+
+    @Override
+    public ApiResponse<ModelDataGetAllResponse> modelDataGetAllWithHttpInfo(String modelId) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelDataGetAllWithHttpInfo(modelId));
+    }
+
+    @Override
+    public ApiResponse<ModelTrainResponse> modelTrainWithHttpInfo(String modelId, ModelTrainRequest modelTrainRequest) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelTrainWithHttpInfo(modelId, modelTrainRequest));
+    }
+
+    @Override
+    public ApiResponse<ModelTrainGetResponse> modelTrainGetStatusWithHttpInfo(String modelId, String trainId) throws ApiException {
+        return invalidateOnNotFound(modelId, () -> super.modelTrainGetStatusWithHttpInfo(modelId, trainId));
+    }
+
+    /**
+     * Sends a request with the HTTP client of this object without blocking the calling thread. Failures are
+     * reported the same way as by the blocking calls, as ApiException wrapped into a CompletionException.
+     *
+     * The response body is received as byte array and deserialized on the given executor, so JSON parsing doesn't
+     * occupy the threads of the HTTP client.
+     */
+    private <T> CompletableFuture<ApiResponse<T>> sendAsync(String method, String path, Object body, Class<T> responseType, String operationId, Executor executor) {
+        HttpRequest.BodyPublisher bodyPublisher = null;
+
+        if (body != null) {
+            try {
+                bodyPublisher = HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(new ApiException(e));
+            }
+        }
+
+        return sendAsync(method, path, bodyPublisher, responseType, operationId, executor);
+    }
 
-        return modelGetAllResponseModelsOptional.get().getModelId();
+    /**
+     * Sends a request with a JSON body from the given publisher, see
+     * {@link #sendAsync(String, String, Object, Class, String, Executor)}.
+     */
+    private <T> CompletableFuture<ApiResponse<T>> sendAsync(String method, String path, HttpRequest.BodyPublisher bodyPublisher, Class<T> responseType, String operationId, Executor executor) {
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder();
+
+        requestBuilder.uri(URI.create(baseUri + path));
+        requestBuilder.header("Accept", "application/json");
+
+        if (bodyPublisher != null) {
+            requestBuilder.header("Content-Type", "application/json");
+            requestBuilder.method(method, bodyPublisher);
+        } else {
+            requestBuilder.method(method, HttpRequest.BodyPublishers.noBody());
+        }
+
+        if (readTimeout != null) {
+            requestBuilder.timeout(readTimeout);
+        }
+
+        if (requestInterceptor != null) {
+            requestInterceptor.accept(requestBuilder);
+        }
+
+        CompletableFuture<HttpResponse<byte[]>> responseFuture = httpClient
+                .sendAsync(requestBuilder.build(), HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, throwable) -> {
+                    if (throwable != null) {
+                        throw new CompletionException(new ApiException(throwable instanceof CompletionException ? throwable.getCause() : throwable));
+                    }
+
+                    if (response.statusCode() / 100 != 2) {
+                        String responseBody = new String(response.body(), StandardCharsets.UTF_8);
+
+                        throw new CompletionException(new ApiException(response.statusCode(),
+                                operationId + " call received non-success response: " + responseBody,
+                                response.headers(),
+                                responseBody));
+                    }
+
+                    return response;
+                });
+
+        Function<HttpResponse<byte[]>, ApiResponse<T>> deserializer = response -> {
+            try {
+                return new ApiResponse<>(
+                        response.statusCode(),
+                        response.headers().map(),
+                        response.body().length == 0 ? null : objectMapper.readValue(response.body(), responseType));
+            } catch (IOException e) {
+                throw new CompletionException(new ApiException(e));
+            }
+        };
+
+        return executor != null
+                ? responseFuture.thenApplyAsync(deserializer, executor)
+                : responseFuture.thenApply(deserializer);
+    }
+
+    /**
+     * Creates a publisher for the JSON form of a request whose image is streamed. The request is serialized with a
+     * placeholder as image data, and the placeholder is replaced by the base64 encoded image while the body is
+     * sent. The content length is known up front, so the body isn't sent chunked.
+     */
+    private HttpRequest.BodyPublisher streamingImageJsonPublisher(Function<Image, Object> requestFactory, StreamingImage image) throws IOException {
+        String placeholder = "vision-client-image-data-" + UUID.randomUUID();
+
+        Image placeholderImage = new Image()
+                .format(image.getFormat())
+                .encoding("base64")
+                .data(placeholder);
+
+        byte[] json = objectMapper.writeValueAsBytes(requestFactory.apply(placeholderImage));
+        byte[] placeholderBytes = placeholder.getBytes(StandardCharsets.UTF_8);
+
+        int placeholderOffset = indexOf(json, placeholderBytes);
+
+        if (placeholderOffset < 0) {
+            throw new IOException("Can't find image data in request.");
+        }
+
+        byte[] prefix = Arrays.copyOfRange(json, 0, placeholderOffset);
+        byte[] suffix = Arrays.copyOfRange(json, placeholderOffset + placeholderBytes.length, json.length);
+
+        long contentLength = prefix.length + Base64EncodingInputStream.encodedLength(image.getLength()) + suffix.length;
+
+        return HttpRequest.BodyPublishers.fromPublisher(
+                HttpRequest.BodyPublishers.ofInputStream(() -> new SequenceInputStream(Collections.enumeration(List.of(
+                        new ByteArrayInputStream(prefix),
+                        new Base64EncodingInputStream(image.openStream()),
+                        new ByteArrayInputStream(suffix))))),
+                contentLength);
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        for (int i = 0; i <= data.length - pattern.length; i++) {
+            int j = 0;
+
+            while (j < pattern.length && data[i + j] == pattern[j]) {
+                j++;
+            }
+
+            if (j == pattern.length) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String modelPath(String modelId, String subPath) {
+        return "/vision/model/" + ApiClient.urlEncode(modelId) + subPath;
+    }
+
+    private static <T> CompletableFuture<T> missingParameter(String operationId) {
+        return CompletableFuture.failedFuture(new ApiException(400, "Missing a required parameter when calling " + operationId));
+    }
+
+    /**
+     * Removes the model from the model id cache if an asynchronous call fails because the Vision API doesn't know
+     * the model (anymore).
+     */
+    private <T> CompletableFuture<T> invalidateOnNotFoundAsync(String modelId, CompletableFuture<T> future) {
+        return future.whenComplete((result, throwable) -> {
+            Throwable cause = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+
+            if (cause instanceof ApiException && ((ApiException) cause).getCode() == 404 && modelIdCache != null) {
+                modelIdCache.invalidateModelId(modelId);
+            }
+        });
+    }
+
+    /**
+     * Executes a model related call and removes the model from the model id cache if the Vision API doesn't know
+     * the model (anymore).
+     */
+    private <T> T invalidateOnNotFound(String modelId, ApiCall<T> call) throws ApiException {
+        try {
+            return call.call();
+        } catch (ApiException e) {
+            if (e.getCode() == 404 && modelIdCache != null) {
+                modelIdCache.invalidateModelId(modelId);
+            }
+
+            throw e;
+        }
     }
 
 }
@@ -2,6 +2,7 @@ package vision.client;
 
 import vision.client.generated.vision.client.invoker.ApiClient;
 
+import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.util.Base64;
 
@@ -21,7 +22,39 @@ public class VisionApiFactory {
      * @throws Exception
      */
     public static VisionApiExtension newVisionApi(String baseApiUrl, String username, String password) throws Exception {
-        ApiClient apiClient = new ApiClient();
+        return newVisionApi(baseApiUrl, username, password, new VisionApiSettings());
+    }
+
+    /**
+     * Creates a new VisionApiExtension object based on passed parameters.
+     *
+     * The returned object owns a single HTTP client and object mapper, it is thread-safe and meant to be shared for
+     * the lifetime of an application instead of being created per call.
+     *
+     * @param baseApiUrl The Vision API base URL.
+     * @param username The Vision API username.
+     * @param password The Vision API password.
+     * @param settings The transport settings.
+     * @return Returns a VisionApiExtension object or throws an Exception.
+     * @throws Exception
+     */
+    public static VisionApiExtension newVisionApi(String baseApiUrl, String username, String password, VisionApiSettings settings) throws Exception {
+        applyConnectionPoolSettings(settings);
+
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .version(settings.getHttpVersion());
+
+        if (settings.getConnectTimeout() != null) {
+            httpClientBuilder.connectTimeout(settings.getConnectTimeout());
+        }
+
+        if (settings.getExecutor() != null) {
+            httpClientBuilder.executor(settings.getExecutor());
+        }
+
+        ApiClient apiClient = new VisionApiClient();
+        apiClient.setHttpClientBuilder(httpClientBuilder);
+        apiClient.setReadTimeout(settings.getReadTimeout());
         apiClient.updateBaseUri(baseApiUrl + "/api/v1");
 
         final String authorizationHeader = "Base " + Base64.getEncoder().encodeToString((username + ":" + password).getBytes("UTF-8"));
@@ -30,7 +63,23 @@ public class VisionApiFactory {
             httpRequestBuilder.setHeader("Authorization", authorizationHeader);
         });
 
-        return new VisionApiExtension(apiClient);
+        return new VisionApiExtension(apiClient, settings.getModelIdCacheTtl());
+    }
+
+    /**
+     * Applies the JVM wide connection pool settings of the JDK HTTP client, unless they are already set explicitly
+     * (e.g. via command line).
+     *
+     * @param settings The transport settings.
+     */
+    private static void applyConnectionPoolSettings(VisionApiSettings settings) {
+        if (settings.getConnectionPoolSize() != null && System.getProperty("jdk.httpclient.connectionPoolSize") == null) {
+            System.setProperty("jdk.httpclient.connectionPoolSize", settings.getConnectionPoolSize().toString());
+        }
+
+        if (settings.getKeepAliveTimeout() != null && System.getProperty("jdk.httpclient.keepalive.timeout") == null) {
+            System.setProperty("jdk.httpclient.keepalive.timeout", Long.toString(settings.getKeepAliveTimeout().toSeconds()));
+        }
     }
 
 }
@@ -0,0 +1,141 @@
+package vision.client;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executor;
+
+
+/**
+ * The VisionApiSettings class holds the transport settings used by the VisionApiFactory to create a long-lived,
+ * thread-safe VisionApiExtension object.
+ */
+public class VisionApiSettings {
+
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    private Duration readTimeout;
+
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+
+    private Integer connectionPoolSize;
+
+    private Duration keepAliveTimeout;
+
+    private Executor executor;
+
+    private Duration modelIdCacheTtl = Duration.ofMinutes(1);
+
+    /**
+     * Sets the timeout to establish a connection to the Vision API.
+     *
+     * @param connectTimeout The connect timeout.
+     * @return Returns this object.
+     */
+    public VisionApiSettings connectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    /**
+     * Sets the default timeout of a single request. A null value means no timeout.
+     *
+     * @param readTimeout The read timeout.
+     * @return Returns this object.
+     */
+    public VisionApiSettings readTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+
+    /**
+     * Sets the preferred HTTP version. HTTP/2 is negotiated where the server supports it, otherwise the client falls
+     * back to HTTP/1.1 with keep-alive.
+     *
+     * @param httpVersion The preferred HTTP version.
+     * @return Returns this object.
+     */
+    public VisionApiSettings httpVersion(HttpClient.Version httpVersion) {
+        this.httpVersion = httpVersion;
+        return this;
+    }
+
+    public HttpClient.Version getHttpVersion() {
+        return httpVersion;
+    }
+
+    /**
+     * Sets the maximum number of idle connections kept alive by the HTTP connection pool. A null value keeps the JDK
+     * default (unbounded).
+     *
+     * Note that the JDK HTTP client reads this setting once per JVM, so it only takes effect if it is applied before
+     * the first HTTP client is created.
+     *
+     * @param connectionPoolSize The connection pool size.
+     * @return Returns this object.
+     */
+    public VisionApiSettings connectionPoolSize(Integer connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+        return this;
+    }
+
+    public Integer getConnectionPoolSize() {
+        return connectionPoolSize;
+    }
+
+    /**
+     * Sets how long an idle connection is kept alive in the HTTP connection pool. A null value keeps the JDK default.
+     *
+     * Note that the JDK HTTP client reads this setting once per JVM, see {@link #connectionPoolSize(Integer)}.
+     *
+     * @param keepAliveTimeout The keep-alive timeout.
+     * @return Returns this object.
+     */
+    public VisionApiSettings keepAliveTimeout(Duration keepAliveTimeout) {
+        this.keepAliveTimeout = keepAliveTimeout;
+        return this;
+    }
+
+    public Duration getKeepAliveTimeout() {
+        return keepAliveTimeout;
+    }
+
+    /**
+     * Sets the executor used by the HTTP client for asynchronous tasks. A null value lets the HTTP client create its
+     * own default executor.
+     *
+     * @param executor The executor.
+     * @return Returns this object.
+     */
+    public VisionApiSettings executor(Executor executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Sets how long resolved vision model ids are cached. A null or zero value disables the cache.
+     *
+     * @param modelIdCacheTtl The time to live of a cached vision model id.
+     * @return Returns this object.
+     */
+    public VisionApiSettings modelIdCacheTtl(Duration modelIdCacheTtl) {
+        this.modelIdCacheTtl = modelIdCacheTtl;
+        return this;
+    }
+
+    public Duration getModelIdCacheTtl() {
+        return modelIdCacheTtl;
+    }
+
+}
@@ -1,12 +1,17 @@
 package vision.client;
 
 import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.awt.image.RenderedImage;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Base64;
+import java.util.Iterator;
 
 
 /**
@@ -14,6 +19,12 @@ import java.util.Base64;
  */
 public class VisionApiUtils {
 
+    /**
+     * JPEG readers are expensive to look up and create, so every thread keeps one for its next decode.
+     */
+    private static final ThreadLocal<ImageReader> JPEG_READER = ThreadLocal.withInitial(
+            () -> ImageIO.getImageReadersByFormatName("jpeg").next());
+
     /**
      * Converts an image to a base64 string.
      *
@@ -43,4 +54,145 @@ public class VisionApiUtils {
         return ImageIO.read(is);
     }
 
+    /**
+     * Converts a base64 string to an image which is decoded with source subsampling, see
+     * {@link #decodeImage(byte[], int, int)}.
+     *
+     * @param base64 Image data encoded as a base64 string.
+     * @param minWidth The minimum width of the decoded image.
+     * @param minHeight The minimum height of the decoded image.
+     * @return Returns a BufferedImage object, null if the format isn't supported or throws an Exception.
+     * @throws IOException
+     */
+    public static BufferedImage baseToImage64String(String base64, int minWidth, int minHeight) throws IOException {
+        return decodeImage(Base64.getDecoder().decode(base64), minWidth, minHeight);
+    }
+
+    /**
+     * Decodes image data for a target size. The image size is read from the header first, then only every n-th pixel
+     * is decoded, so that the decoded image is still at least twice the target size. A later bilinear scale to the
+     * target size then doesn't alias, while a 12MP photo only allocates a fraction of its full size.
+     *
+     * @param data The image data.
+     * @param minWidth The minimum width of the decoded image.
+     * @param minHeight The minimum height of the decoded image.
+     * @return Returns a BufferedImage object, null if the format isn't supported or throws an Exception.
+     * @throws IOException
+     */
+    public static BufferedImage decodeImage(byte[] data, int minWidth, int minHeight) throws IOException {
+        Dimension jpegSize = readJpegSize(data);
+
+        try (ImageInputStream iis = ImageIO.createImageInputStream(new ByteArrayInputStream(data))) {
+            if (jpegSize != null) {
+                ImageReader reader = JPEG_READER.get();
+
+                try {
+                    reader.setInput(iis, true, true);
+
+                    return reader.read(0, subsamplingParam(reader, jpegSize, minWidth, minHeight));
+                } finally {
+                    reader.reset();
+                }
+            }
+
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+
+            if (!readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+
+            try {
+                reader.setInput(iis, true, true);
+
+                Dimension size = new Dimension(reader.getWidth(0), reader.getHeight(0));
+
+                return reader.read(0, subsamplingParam(reader, size, minWidth, minHeight));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static ImageReadParam subsamplingParam(ImageReader reader, Dimension size, int minWidth, int minHeight) {
+        ImageReadParam param = reader.getDefaultReadParam();
+
+        // The same factor for both axes keeps the aspect ratio.
+
+        int subsampling = Math.max(1, Math.min(
+                size.width / (2 * Math.max(1, minWidth)),
+                size.height / (2 * Math.max(1, minHeight))));
+
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+
+        return param;
+    }
+
+    /**
+     * Reads the image size from the header of JPEG data without decoding the image. Only baseline and progressive
+     * JPEG data with one (gray) or three (YCbCr) color components is accepted.
+     *
+     * @param data The JPEG data or at least the leading part of it that contains the frame header.
+     * @return Returns the image size or null if the data doesn't start with a supported JPEG header.
+     */
+    public static Dimension readJpegSize(byte[] data) {
+        if (data == null || data.length < 4 || (data[0] & 0xFF) != 0xFF || (data[1] & 0xFF) != 0xD8) {
+            return null;
+        }
+
+        int offset = 2;
+
+        while (offset + 4 <= data.length) {
+            if ((data[offset] & 0xFF) != 0xFF) {
+                return null;
+            }
+
+            int marker = data[offset + 1] & 0xFF;
+
+            if (marker == 0xFF) {
+                // Fill byte.
+                offset++;
+                continue;
+            }
+
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                // Markers without a segment.
+                offset += 2;
+                continue;
+            }
+
+            if (marker == 0xD9 || marker == 0xDA) {
+                // End of image or start of scan before a frame header.
+                return null;
+            }
+
+            int segmentLength = ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+
+            if (segmentLength < 2) {
+                return null;
+            }
+
+            if (marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC) {
+                if (marker > 0xC2 || offset + 10 > data.length) {
+                    return null;
+                }
+
+                int height = ((data[offset + 5] & 0xFF) << 8) | (data[offset + 6] & 0xFF);
+                int width = ((data[offset + 7] & 0xFF) << 8) | (data[offset + 8] & 0xFF);
+                int components = data[offset + 9] & 0xFF;
+
+                if (width == 0 || height == 0 || (components != 1 && components != 3)) {
+                    return null;
+                }
+
+                return new Dimension(width, height);
+            }
+
+            offset += 2 + segmentLength;
+        }
+
+        return null;
+    }
+
 }
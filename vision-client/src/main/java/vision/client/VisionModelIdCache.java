@@ -0,0 +1,168 @@
+package vision.client;
+
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * The VisionModelIdCache class caches the vision model name to vision model id mapping.
+ *
+ * Entries expire after a configured time to live. While entries are cached, a background task reloads them in the
+ * middle of their lifetime, so callers usually never have to wait for a lookup round trip.
+ */
+public class VisionModelIdCache implements AutoCloseable {
+
+    /**
+     * The Loader interface loads the complete vision model name to vision model id mapping.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        Map<String, String> load() throws Exception;
+
+    }
+
+    private static final class Entry {
+
+        private final String modelId;
+
+        private final long expiresAt;
+
+        private Entry(String modelId, long expiresAt) {
+            this.modelId = modelId;
+            this.expiresAt = expiresAt;
+        }
+
+    }
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    private final Loader loader;
+
+    private final long ttlInMs;
+
+    private final ScheduledExecutorService refresher;
+
+    /**
+     * Constructor.
+     *
+     * @param loader The loader which queries all vision models.
+     * @param ttl The time to live of a cached entry.
+     */
+    public VisionModelIdCache(Loader loader, Duration ttl) {
+        this.loader = loader;
+        this.ttlInMs = ttl.toMillis();
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "vision-model-id-cache-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long refreshPeriodInMs = Math.max(1, ttlInMs / 2);
+
+        this.refresher.scheduleWithFixedDelay(this::refreshQuietly, refreshPeriodInMs, refreshPeriodInMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the vision model id for a vision model name. The mapping is loaded if it isn't cached or expired.
+     *
+     * @param modelName The vision model name.
+     * @return Returns the vision model id or throws an exception.
+     * @throws Exception
+     */
+    public String get(String modelName) throws Exception {
+        Entry entry = entries.get(modelName);
+
+        if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+            return entry.modelId;
+        }
+
+        synchronized (this) {
+            // Another thread might have loaded the mapping in the meantime.
+
+            entry = entries.get(modelName);
+
+            if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+                reload(true);
+                entry = entries.get(modelName);
+            }
+        }
+
+        if (entry == null) {
+            throw new Exception(MessageFormat.format("Can''t find model ''{0}''.", modelName));
+        }
+
+        return entry.modelId;
+    }
+
+    /**
+     * Removes a cached vision model name.
+     *
+     * @param modelName The vision model name.
+     */
+    public void invalidate(String modelName) {
+        if (modelName != null) {
+            entries.remove(modelName);
+        }
+    }
+
+    /**
+     * Removes all cached vision model names which map to the given vision model id.
+     *
+     * @param modelId The vision model id.
+     */
+    public void invalidateModelId(String modelId) {
+        if (modelId != null) {
+            entries.values().removeIf(e -> modelId.equals(e.modelId));
+        }
+    }
+
+    /**
+     * Removes all cached entries.
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    /**
+     * Stops the background refresh.
+     */
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+
+    private void refreshQuietly() {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        try {
+            synchronized (this) {
+                reload(false);
+            }
+        } catch (Exception e) {
+            // Keep the current entries, they expire regularly and the next lookup reports the error.
+        }
+    }
+
+    private void reload(boolean includeNewModels) throws Exception {
+        Map<String, String> modelIds = loader.load();
+
+        long expiresAt = System.currentTimeMillis() + ttlInMs;
+
+        entries.keySet().removeIf(modelName -> !modelIds.containsKey(modelName));
+
+        for (Map.Entry<String, String> e : modelIds.entrySet()) {
+            if (includeNewModels || entries.containsKey(e.getKey())) {
+                entries.put(e.getKey(), new Entry(e.getValue(), expiresAt));
+            }
+        }
+    }
+
+}
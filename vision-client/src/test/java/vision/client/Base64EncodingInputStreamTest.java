@@ -0,0 +1,33 @@
+package vision.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * The Base64EncodingInputStreamTest class contains a couple of tests to check the Base64EncodingInputStream functionality.
+ */
+public class Base64EncodingInputStreamTest {
+
+	@Test
+	public void testEncoding() throws Exception {
+		Random random = new Random(1);
+
+		for (int length : new int[] { 0, 1, 2, 3, 3 * 1024, 3 * 1024 + 1, 10_000 }) {
+			byte[] data = new byte[length];
+			random.nextBytes(data);
+
+			byte[] encoded = new Base64EncodingInputStream(new ByteArrayInputStream(data)).readAllBytes();
+
+			assertEquals(Base64.getEncoder().encodeToString(data), new String(encoded, StandardCharsets.US_ASCII));
+			assertEquals(encoded.length, Base64EncodingInputStream.encodedLength(length));
+		}
+	}
+
+}
@@ -0,0 +1,110 @@
+package vision.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import vision.client.generated.vision.client.invoker.ApiException;
+import vision.client.generated.vision.client.invoker.ApiResponse;
+import vision.client.generated.vision.client.model.ModelDetectRequest;
+import vision.client.generated.vision.client.model.ModelDetectResponse;
+
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * The VisionApiExtensionAsyncTest class checks the asynchronous VisionApiExtension calls against a local stub server.
+ */
+public class VisionApiExtensionAsyncTest {
+
+	private HttpServer server;
+
+	private VisionApiExtension visionApi;
+
+	private volatile byte[] lastRequestBody;
+
+	private volatile String lastContentLength;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+
+		server.createContext("/api/v1/vision/model/model-1/detect", exchange -> {
+			lastRequestBody = exchange.getRequestBody().readAllBytes();
+			lastContentLength = exchange.getRequestHeaders().getFirst("Content-Length");
+			byte[] body = "{\"detectedObjects\":[{\"label\":\"apple\",\"probability\":0.9}]}".getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().add("Content-Type", "application/json");
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+
+		server.createContext("/api/v1/vision/model/unknown/detect", exchange -> {
+			exchange.sendResponseHeaders(404, -1);
+			exchange.close();
+		});
+
+		server.start();
+
+		visionApi = VisionApiFactory.newVisionApi("http://localhost:" + server.getAddress().getPort(), null, null,
+				new VisionApiSettings().httpVersion(HttpClient.Version.HTTP_1_1));
+	}
+
+	@AfterEach
+	public void tearDown() {
+		visionApi.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void testModelDetectAsync() throws Exception {
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+
+		try {
+			ApiResponse<ModelDetectResponse> response = visionApi.modelDetectAsync("model-1", new ModelDetectRequest(), executor).get();
+
+			assertEquals(200, response.getStatusCode());
+			assertEquals("apple", response.getData().getDetectedObjects().get(0).getLabel());
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testModelDetectAsyncReportsApiException() {
+		CompletionException e = assertThrows(CompletionException.class,
+				() -> visionApi.modelDetectAsync("unknown", new ModelDetectRequest()).join());
+
+		assertTrue(e.getCause() instanceof ApiException);
+		assertEquals(404, ((ApiException) e.getCause()).getCode());
+	}
+
+	@Test
+	public void testModelDetectAsyncWithStreamingImage() throws Exception {
+		byte[] imageData = new byte[100_000];
+		new Random(1).nextBytes(imageData);
+
+		ApiResponse<ModelDetectResponse> response = visionApi.modelDetectAsync("model-1", new ModelDetectRequest(),
+				StreamingImage.ofBytes(imageData, "jpg"), null).get();
+
+		assertEquals(200, response.getStatusCode());
+		assertEquals(Integer.toString(lastRequestBody.length), lastContentLength);
+
+		ModelDetectRequest request = new ObjectMapper().readValue(lastRequestBody, ModelDetectRequest.class);
+
+		assertEquals("jpg", request.getImage().getFormat());
+		assertEquals("base64", request.getImage().getEncoding());
+		assertArrayEquals(imageData, Base64.getDecoder().decode(request.getImage().getData()));
+	}
+
+}
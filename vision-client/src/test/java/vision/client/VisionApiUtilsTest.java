@@ -3,7 +3,9 @@ package vision.client;
 import org.junit.jupiter.api.Test;
 
 import javax.imageio.ImageIO;
+import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
@@ -28,4 +30,54 @@ public class VisionApiUtilsTest {
 		assertEquals(1276, bufferedImage.getHeight());
 	}
 
+	@Test
+	public void testReadJpegSize() throws Exception {
+		Path testImagePath = Paths.get("src","test","resources", "test-image.jpg");
+
+		BufferedImage bufferedImage = ImageIO.read(testImagePath.toFile());
+
+		Dimension size = VisionApiUtils.readJpegSize(Files.readAllBytes(testImagePath));
+
+		assertNotNull(size);
+		assertEquals(bufferedImage.getWidth(), size.width);
+		assertEquals(bufferedImage.getHeight(), size.height);
+	}
+
+	@Test
+	public void testReadJpegSizeOfNonJpegData() throws Exception {
+		assertNull(VisionApiUtils.readJpegSize(new byte[] { (byte) 0x89, 'P', 'N', 'G', 0, 0, 0, 0 }));
+		assertNull(VisionApiUtils.readJpegSize(new byte[] { (byte) 0xFF, (byte) 0xD8 }));
+	}
+
+	@Test
+	public void testDecodeImageSubsampled() throws Exception {
+		BufferedImage image = new BufferedImage(1600, 900, BufferedImage.TYPE_INT_RGB);
+
+		String base64 = VisionApiUtils.imageToBase64String(image, "jpg");
+
+		BufferedImage decodedImage = VisionApiUtils.baseToImage64String(base64, 128, 128);
+
+		assertEquals(534, decodedImage.getWidth());
+		assertEquals(300, decodedImage.getHeight());
+
+		// The reader of this thread is reused for the next image.
+
+		decodedImage = VisionApiUtils.baseToImage64String(base64, 1600, 900);
+
+		assertEquals(1600, decodedImage.getWidth());
+		assertEquals(900, decodedImage.getHeight());
+	}
+
+	@Test
+	public void testDecodeImageSubsampledPng() throws Exception {
+		BufferedImage image = new BufferedImage(1000, 1000, BufferedImage.TYPE_INT_RGB);
+
+		String base64 = VisionApiUtils.imageToBase64String(image, "png");
+
+		BufferedImage decodedImage = VisionApiUtils.baseToImage64String(base64, 100, 100);
+
+		assertEquals(200, decodedImage.getWidth());
+		assertEquals(200, decodedImage.getHeight());
+	}
+
 }
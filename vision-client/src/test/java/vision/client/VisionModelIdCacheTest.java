@@ -0,0 +1,52 @@
+package vision.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+
+/**
+ * The VisionModelIdCacheTest class contains a couple of tests to check the VisionModelIdCache functionality.
+ */
+public class VisionModelIdCacheTest {
+
+	@Test
+	public void testModelIdIsLoadedOnce() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+
+		try (VisionModelIdCache cache = new VisionModelIdCache(() -> {
+			loads.incrementAndGet();
+			return Map.of("model-a", "1", "model-b", "2");
+		}, Duration.ofMinutes(1))) {
+			assertEquals("1", cache.get("model-a"));
+			assertEquals("1", cache.get("model-a"));
+			assertEquals("2", cache.get("model-b"));
+			assertEquals(1, loads.get());
+		}
+	}
+
+	@Test
+	public void testInvalidateModelId() throws Exception {
+		AtomicInteger loads = new AtomicInteger();
+
+		try (VisionModelIdCache cache = new VisionModelIdCache(() -> Map.of("model-a", Integer.toString(loads.incrementAndGet())), Duration.ofMinutes(1))) {
+			assertEquals("1", cache.get("model-a"));
+
+			cache.invalidateModelId("1");
+
+			assertEquals("2", cache.get("model-a"));
+		}
+	}
+
+	@Test
+	public void testUnknownModelName() throws Exception {
+		try (VisionModelIdCache cache = new VisionModelIdCache(() -> Map.of("model-a", "1"), Duration.ofMinutes(1))) {
+			assertThrows(Exception.class, () -> cache.get("model-x"));
+		}
+	}
+
+}